@@ -0,0 +1,427 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import jenkins.util.SystemProperties;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map storing numeric values in a primitive column instead of boxed objects.
+ * <p>
+ * Keys are kept sorted in an array, so lookups are binary searches and changes are merged in linear time. Numbers are
+ * stored in a <code>long</code> column and all other values in an object column, each sized to its own values. The
+ * position of a value in its column is counted per block of 16 keys. Booleans and small integers are stored as the
+ * shared instances of their box classes, so only other numbers are boxed again on access.
+ * <p>
+ * Used as in-memory snapshot of {@link CustomBuildPropertiesAction} if enabled by the system property
+ * <code>org.jenkinsci.plugins.custombuildproperties.CompactPropertiesMap.enabled</code>. It is serialized as plain
+ * {@link HashMap}, so <code>build.xml</code> does not depend on this class.
+ */
+public final class CompactPropertiesMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Non-final for testing.
+     */
+    static boolean ENABLED = SystemProperties.getBoolean(CompactPropertiesMap.class.getName() + ".enabled", false);
+
+    private static final CompactPropertiesMap EMPTY = new Builder(0).build();
+
+    private static final byte TYPE_OBJECT = 0;
+    private static final byte TYPE_INTEGER = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_FLOAT = 4;
+
+    private static final int BLOCK_SHIFT = 4;
+
+    /**
+     * @return the compact form of the given map, or a {@link HashMap} copy if the map has a <code>null</code> key
+     */
+    static Map<String, Object> of(Map<String, ?> map) {
+        if (map instanceof CompactPropertiesMap) {
+            return (CompactPropertiesMap) map;
+        }
+        if (map.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (String key : map.keySet()) {
+            if (key == null) {
+                return new HashMap<>(map);
+            }
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+
+        Builder builder = new Builder(keys.length);
+        for (String key : keys) {
+            builder.add(key, map.get(key));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a map with the changes applied, this map is not modified
+     */
+    Map<String, Object> with(Map<String, ?> changes) {
+        String[] changedKeys = new String[changes.size()];
+        int changedCount = 0;
+        for (String key : changes.keySet()) {
+            if (key == null) {
+                Map<String, Object> result = new HashMap<>(this);
+                result.putAll(changes);
+                return result;
+            }
+            changedKeys[changedCount++] = key;
+        }
+        if (changedCount == 0) {
+            return this;
+        }
+        Arrays.sort(changedKeys);
+
+        Builder builder = new Builder(keys.length + changedCount);
+        int objectPosition = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < changedCount) {
+            int cmp = i >= keys.length ? 1 : j >= changedCount ? -1 : keys[i].compareTo(changedKeys[j]);
+            if (cmp <= 0) {
+                byte type = typeAt(i);
+                if (cmp < 0) {
+                    // unchanged entries are copied without boxing
+                    if (type == TYPE_OBJECT) {
+                        builder.addObject(keys[i], objects[objectPosition]);
+                    } else {
+                        builder.addBits(keys[i], type, numbers[i - objectPosition]);
+                    }
+                }
+                if (type == TYPE_OBJECT) {
+                    objectPosition++;
+                }
+                i++;
+            }
+            if (cmp >= 0) {
+                builder.add(changedKeys[j], changes.get(changedKeys[j]));
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the numeric type of the value, {@link #TYPE_OBJECT} for all other values and for values with a shared
+     * boxed instance
+     */
+    private static byte typeOf(Object value) {
+        if (value instanceof Integer) {
+            return isSmall(((Integer) value).longValue()) ? TYPE_OBJECT : TYPE_INTEGER;
+        }
+        if (value instanceof Long) {
+            return isSmall((Long) value) ? TYPE_OBJECT : TYPE_LONG;
+        }
+        if (value instanceof Double) {
+            return TYPE_DOUBLE;
+        }
+        if (value instanceof Float) {
+            return TYPE_FLOAT;
+        }
+        return TYPE_OBJECT;
+    }
+
+    /**
+     * @return whether <code>valueOf</code> of the box class returns a shared instance for the value
+     */
+    private static boolean isSmall(long value) {
+        return value >= -128L && value <= 127L;
+    }
+
+    /**
+     * @return the shared boxed instance for booleans and small integers, otherwise the value itself
+     */
+    private static Object toShared(Object value) {
+        if (value instanceof Boolean) {
+            return Boolean.valueOf((Boolean) value);
+        }
+        if (value instanceof Integer) {
+            return Integer.valueOf((Integer) value);
+        }
+        if (value instanceof Long) {
+            return Long.valueOf((Long) value);
+        }
+        return value;
+    }
+
+    private static long toBits(byte type, Object value) {
+        switch (type) {
+            case TYPE_INTEGER:
+            case TYPE_LONG:
+                return ((Number) value).longValue();
+            case TYPE_DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            case TYPE_FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private static Object fromBits(byte type, long bits) {
+        switch (type) {
+            case TYPE_INTEGER:
+                return (int) bits;
+            case TYPE_LONG:
+                return bits;
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private final String[] keys;
+
+    /**
+     * Type per key, <code>null</code> if all values are objects.
+     */
+    private final byte[] types;
+
+    private final long[] numbers;
+    private final Object[] objects;
+
+    /**
+     * Number of objects up to the end of each block of keys, <code>null</code> unless numbers and objects are mixed.
+     */
+    private final int[] objectCounts;
+
+    private transient Set<Entry<String, Object>> entrySet;
+
+    private CompactPropertiesMap(String[] keys, byte[] types, long[] numbers, Object[] objects, int[] objectCounts) {
+        super();
+
+        this.keys = keys;
+        this.types = types;
+        this.numbers = numbers;
+        this.objects = objects;
+        this.objectCounts = objectCounts;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * @return the keys in natural order; shared, must not be modified
+     */
+    String[] getSortedKeys() {
+        return keys;
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        return Arrays.binarySearch(keys, key);
+    }
+
+    private byte typeAt(int index) {
+        return types != null ? types[index] : TYPE_OBJECT;
+    }
+
+    /**
+     * @return the number of objects before the index
+     */
+    private int objectPosition(int index) {
+        if (types == null) {
+            return index;
+        }
+        if (objectCounts == null) {
+            return 0;
+        }
+        int block = index >>> BLOCK_SHIFT;
+        int position = block > 0 ? objectCounts[block - 1] : 0;
+        for (int i = block << BLOCK_SHIFT; i < index; i++) {
+            if (types[i] == TYPE_OBJECT) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private Object valueAt(int index) {
+        byte type = typeAt(index);
+        int objectPosition = objectPosition(index);
+        return type == TYPE_OBJECT ? objects[objectPosition] : fromBits(type, numbers[index - objectPosition]);
+    }
+
+    /**
+     * Serialized as plain map, see class comment.
+     */
+    private Object writeReplace() {
+        return new HashMap<>(this);
+    }
+
+    /**
+     * Collects sorted entries and packs them into columns of the exact size.
+     */
+    private static final class Builder {
+
+        private final String[] keys;
+        private final byte[] types;
+        private final long[] bits;
+        private final Object[] values;
+        private int size;
+        private int numberCount;
+
+        private Builder(int capacity) {
+            keys = new String[capacity];
+            types = new byte[capacity];
+            bits = new long[capacity];
+            values = new Object[capacity];
+        }
+
+        private void add(String key, Object value) {
+            byte type = typeOf(value);
+            if (type == TYPE_OBJECT) {
+                addObject(key, toShared(value));
+            } else {
+                addBits(key, type, toBits(type, value));
+            }
+        }
+
+        private void addObject(String key, Object value) {
+            keys[size] = key;
+            types[size] = TYPE_OBJECT;
+            values[size] = value;
+            size++;
+        }
+
+        private void addBits(String key, byte type, long value) {
+            keys[size] = key;
+            types[size] = type;
+            bits[size] = value;
+            size++;
+            numberCount++;
+        }
+
+        private CompactPropertiesMap build() {
+            int objectCount = size - numberCount;
+            long[] numbers = new long[numberCount];
+            Object[] objects = new Object[objectCount];
+            int[] objectCounts = numberCount > 0 && objectCount > 0 ? new int[(size + (1 << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT] : null;
+            int objectPosition = 0;
+            for (int i = 0; i < size; i++) {
+                if (types[i] == TYPE_OBJECT) {
+                    objects[objectPosition++] = values[i];
+                } else {
+                    numbers[i - objectPosition] = bits[i];
+                }
+                if (objectCounts != null) {
+                    objectCounts[i >>> BLOCK_SHIFT] = objectPosition;
+                }
+            }
+            return new CompactPropertiesMap(Arrays.copyOf(keys, size), numberCount > 0 ? Arrays.copyOf(types, size) : null,
+                    numbers, objects, objectCounts);
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new Iterator<Entry<String, Object>>() {
+
+                private int index;
+                private int objectPosition;
+
+                @Override
+                public boolean hasNext() {
+                    return index < keys.length;
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    if (index >= keys.length) {
+                        throw new NoSuchElementException();
+                    }
+                    byte type = typeAt(index);
+                    Object value;
+                    if (type == TYPE_OBJECT) {
+                        value = objects[objectPosition++];
+                    } else {
+                        value = fromBits(type, numbers[index - objectPosition]);
+                    }
+                    Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[index], value);
+                    index++;
+                    return entry;
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+    }
+
+}
@@ -24,12 +24,19 @@
 
 package org.jenkinsci.plugins.custombuildproperties;
 
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import hudson.Util;
+import hudson.markup.MarkupFormatter;
 import hudson.model.Api;
 import hudson.model.Item;
 import hudson.model.Run;
+import hudson.util.XStream2;
 import jenkins.model.Jenkins;
 import jenkins.model.RunAction2;
 import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.BooleanUtils;
 import org.jenkinsci.plugins.custombuildproperties.table.CbpTable;
 import org.jenkinsci.plugins.custombuildproperties.table.CbpTablesFactory;
@@ -41,10 +48,18 @@
 import org.kohsuke.stapler.interceptor.RequirePOST;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.math.BigInteger;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -54,18 +69,25 @@
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @ExportedBean
 public class CustomBuildPropertiesAction implements RunAction2 {
 
+    private static final Logger LOGGER = Logger.getLogger(CustomBuildPropertiesAction.class.getName());
+
     public static final String CBP_TABLE_PREFIX = "_cbp_table_";
     public static final String CBP_SANITIZER_PREFIX = "_cbp_sanitizer_";
     public static final String CBP_INTERNAL_SANITIZER = "internal";
@@ -113,48 +135,236 @@ private static <T> void addRemoteType(Map<String, Function<String, ?>> map, Clas
         SUPPORTED_REMOTE_TYPES = Collections.unmodifiableMap(map);
     }
 
-    private final Map<String, Object> properties = new HashMap<>();
+    /**
+     * Get the action of the run or attach a new one. Callers have to hold the lock of the run.
+     */
+    static CustomBuildPropertiesAction getOrCreate(Run<?, ?> run) {
+        final CustomBuildPropertiesAction actionMayBeNull = run.getAction(CustomBuildPropertiesAction.class);
+        if (actionMayBeNull != null) {
+            return actionMayBeNull;
+        }
+        final CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        run.addAction(action);
+        return action;
+    }
+
+    /**
+     * Immutable snapshot of the properties. Writers replace it while holding the lock of this action, readers just
+     * read the current snapshot. <code>null</code> until loaded if stored in the sidecar file.
+     */
+    private volatile Map<String, Object> properties = new HashMap<>();
+
+    /**
+     * Whether the properties are stored in {@link CustomBuildPropertiesSidecar} instead of <code>build.xml</code>.
+     */
+    private boolean sidecar;
+
+    /**
+     * Whether <code>build.xml</code> only contains the stub, so the run does not need to be saved for changes.
+     */
+    private transient volatile boolean sidecarStubSaved;
+
+    /**
+     * Sequence number of the last change in the sidecar file.
+     */
+    private transient long sidecarSequence;
+
+    /**
+     * Number of lines in the sidecar file.
+     */
+    private transient int sidecarLineCount;
 
     private transient Run<?, ?> run;
 
+    private transient volatile CachedViewTables cachedViewTables;
+
+    private transient volatile SortedKeys sortedKeys;
+
     public CustomBuildPropertiesAction() {
         super();
     }
 
+    /**
+     * The returned map used to be the live, modifiable map of the action. Callers which modified it have to use
+     * {@link #setProperties(Map)} instead, which also notifies the listeners.
+     *
+     * @return an unmodifiable snapshot of the properties, not affected by later changes
+     */
     @Exported(visibility = 2)
     public Map<String, Object> getProperties() {
-        synchronized (properties) {
-            return new HashMap<>(properties);
-        }
+        return Collections.unmodifiableMap(snapshot());
     }
 
     public boolean containsProperty(String key) {
-        synchronized (properties) {
-            return properties.containsKey(key);
-        }
+        return snapshot().containsKey(key);
     }
 
     public Object getProperty(String key) {
-        synchronized (properties) {
-            return properties.get(key);
+        return snapshot().get(key);
+    }
+
+    /**
+     * @return the properties with keys starting with the prefix, sorted by key
+     */
+    public SortedMap<String, Object> getPropertiesWithPrefix(String prefix) {
+        SortedKeys currentSortedKeys = getSortedKeys();
+        return currentSortedKeys.toMap(currentSortedKeys.lowerBound(prefix), currentSortedKeys.prefixEnd(prefix));
+    }
+
+    /**
+     * @param fromKey lowest key (inclusive) or <code>null</code> for no lower bound
+     * @param toKey   highest key (exclusive) or <code>null</code> for no upper bound
+     * @return the properties with keys in the range, sorted by key
+     */
+    public SortedMap<String, Object> subMap(String fromKey, String toKey) {
+        SortedKeys currentSortedKeys = getSortedKeys();
+        int from = fromKey != null ? currentSortedKeys.lowerBound(fromKey) : 0;
+        int to = toKey != null ? currentSortedKeys.lowerBound(toKey) : currentSortedKeys.size();
+        return currentSortedKeys.toMap(from, Math.max(from, to));
+    }
+
+    /**
+     * @return the sorted keys of the current snapshot, sorted once per snapshot
+     */
+    private SortedKeys getSortedKeys() {
+        Map<String, Object> currentProperties = snapshot();
+        SortedKeys cached = sortedKeys;
+        if (cached != null && cached.isFor(currentProperties)) {
+            return cached;
         }
+        cached = SortedKeys.of(currentProperties);
+        sortedKeys = cached;
+        return cached;
     }
 
+    /**
+     * Each call copies the properties into a new snapshot, so setting many properties one at a time is quadratic.
+     * Use {@link #setProperties(Map)} to set them at once.
+     *
+     * @return the previous value
+     */
     public Object setProperty(String key, Object newValue) {
         return setPropertyInternal(key, newValue, false, true);
     }
 
+    /**
+     * @return always <code>null</code>
+     * @see #setProperty(String, Object)
+     */
     public Object setPropertyIfAbsent(String key, Object newValue) {
         return setPropertyInternal(key, newValue, true, true);
     }
 
+    /**
+     * Set all given properties at once.
+     *
+     * @return the previous values of all keys in the given map
+     */
+    public Map<String, Object> setProperties(Map<String, ?> newValues) {
+        return setPropertiesInternal(newValues, false, true);
+    }
+
+    /**
+     * Set all given properties at once, keeping existing ones untouched.
+     *
+     * @return the previous values of the keys which have been set (always <code>null</code>)
+     */
+    public Map<String, Object> setPropertiesIfAbsent(Map<String, ?> newValues) {
+        return setPropertiesInternal(newValues, true, true);
+    }
+
     public List<CbpTable> getViewTables() {
-        Map<String, Object> clonedProperties;
-        synchronized (properties) {
-            clonedProperties = new TreeMap<>(properties);
+        return getViewTables(Jenkins.get().getMarkupFormatter());
+    }
+
+    /**
+     * @return the tables of the current snapshot, built once per snapshot and markup formatter
+     */
+    List<CbpTable> getViewTables(MarkupFormatter markupFormatter) {
+        Map<String, Object> currentProperties = snapshot();
+        CachedViewTables cached = cachedViewTables;
+        if (cached != null && cached.properties == currentProperties && cached.markupFormatter == markupFormatter) {
+            return cached.tables;
         }
 
-        return new CbpTablesFactory(clonedProperties, Jenkins.get().getMarkupFormatter()).createTables();
+        List<CbpTable> tables = Collections.unmodifiableList(new CbpTablesFactory(new TreeMap<>(currentProperties), markupFormatter).createTables());
+        cachedViewTables = new CachedViewTables(currentProperties, markupFormatter, tables);
+        return tables;
+    }
+
+    /**
+     * Read the properties stored in the <code>build.xml</code> of a build without loading the run. Only the element of
+     * this action is unmarshalled, all others are skipped.
+     *
+     * @return the properties, <code>null</code> if the build has none or stores them in the sidecar file
+     */
+    public static Map<String, Object> readProperties(File buildDir) throws IOException {
+        return readProperties(buildDir, Run.XSTREAM2);
+    }
+
+    static Map<String, Object> readProperties(File buildDir, XStream2 xStream) throws IOException {
+        File file = new File(buildDir, "build.xml");
+        if (!file.isFile()) {
+            return null;
+        }
+        String elementName = xStream.getMapper().serializedClass(CustomBuildPropertiesAction.class);
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            HierarchicalStreamReader reader = XStream2.getDefaultDriver().createReader(in);
+            try {
+                while (reader.hasMoreChildren()) {
+                    reader.moveDown();
+                    if ("actions".equals(reader.getNodeName())) {
+                        while (reader.hasMoreChildren()) {
+                            reader.moveDown();
+                            if (elementName.equals(reader.getNodeName())) {
+                                CustomBuildPropertiesAction action = (CustomBuildPropertiesAction) xStream.unmarshal(reader);
+                                return action.sidecar ? null : action.properties;
+                            }
+                            reader.moveUp();
+                        }
+                        return null;
+                    }
+                    reader.moveUp();
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XStreamException | ClassCastException e) {
+            throw new IOException("Failed to read " + file, e);
+        }
+    }
+
+    protected Object readResolve() {
+        if (sidecar) {
+            // loaded lazily
+            properties = null;
+        } else if (properties == null) {
+            properties = new HashMap<>();
+        } else if (CompactPropertiesMap.ENABLED) {
+            properties = CompactPropertiesMap.of(properties);
+        }
+        return this;
+    }
+
+    /**
+     * Only the stub is written to <code>build.xml</code> if the properties are stored in the sidecar file. Compact
+     * properties are written as plain map, so versions without {@link CompactPropertiesMap} can still load the build.
+     */
+    protected Object writeReplace() {
+        if (sidecar) {
+            CustomBuildPropertiesAction stub = new CustomBuildPropertiesAction();
+            stub.properties = null;
+            stub.sidecar = true;
+            return stub;
+        }
+        Map<String, Object> currentProperties = properties;
+        if (currentProperties instanceof CompactPropertiesMap) {
+            CustomBuildPropertiesAction copy = new CustomBuildPropertiesAction();
+            copy.properties = new HashMap<>(currentProperties);
+            return copy;
+        }
+        return this;
     }
 
     @Override
@@ -165,6 +375,136 @@ public void onAttached(Run<?, ?> run) {
     @Override
     public void onLoad(Run<?, ?> run) {
         this.run = run;
+        sidecarStubSaved = sidecar;
+    }
+
+    /**
+     * @return whether changes are already persisted without saving the run
+     */
+    boolean isPersistedWithoutRunSave() {
+        return sidecarStubSaved;
+    }
+
+    /**
+     * @return whether the properties are stored in the sidecar file, i.e. saving the run only writes the stub
+     */
+    synchronized boolean isSidecar() {
+        return sidecar;
+    }
+
+    /**
+     * Called after the run was saved while {@link #isSidecar()}, so later changes do not need to save the run.
+     */
+    void onStubSaved() {
+        sidecarStubSaved = true;
+    }
+
+    /**
+     * @return the current snapshot for readers, empty if the sidecar file cannot be read; loading is retried next time
+     */
+    private Map<String, Object> snapshot() {
+        Map<String, Object> current = properties;
+        if (current != null) {
+            return current;
+        }
+        try {
+            return load();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load custom build properties of " + run, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * @return the current snapshot for writers, which must not continue without the stored properties
+     */
+    private Map<String, Object> snapshotForWrite() {
+        try {
+            return load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load custom build properties of " + run, e);
+        }
+    }
+
+    private synchronized Map<String, Object> load() throws IOException {
+        if (properties == null) {
+            CustomBuildPropertiesSidecar.Content content = CustomBuildPropertiesSidecar.load(CustomBuildPropertiesSidecar.getFile(run));
+            sidecarSequence = content.getSequence();
+            sidecarLineCount = content.getLineCount();
+            properties = toSnapshot(content.getProperties());
+        }
+        return properties;
+    }
+
+    /**
+     * Persist the changes to the sidecar file if used, otherwise they are saved with the run. Callers have to hold
+     * the lock of this action.
+     */
+    private void storeChanges(Map<String, Object> changedProperties, Map<String, ?> changes) {
+        if (run == null || !sidecar && !CustomBuildPropertiesSidecar.ENABLED) {
+            return;
+        }
+        try {
+            File file = CustomBuildPropertiesSidecar.getFile(run);
+            long sequence = sidecarSequence + 1;
+            if (sidecar) {
+                CustomBuildPropertiesSidecar.append(file, changes, sequence);
+                sidecarLineCount += changes.size();
+            } else {
+                CustomBuildPropertiesSidecar.write(file, changedProperties, sequence);
+                sidecarLineCount = changedProperties.size();
+                sidecar = true;
+            }
+            sidecarSequence = sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store custom build properties of " + run, e);
+        }
+
+        if (sidecarLineCount - changedProperties.size() >= CustomBuildPropertiesSidecar.COMPACT_THRESHOLD) {
+            CustomBuildPropertiesSidecar.scheduleCompaction(run);
+        }
+    }
+
+    /**
+     * Rewrite the sidecar file with the current properties, if it has superseded lines.
+     */
+    void compactSidecar() throws IOException {
+        synchronized (this) {
+            Map<String, Object> currentProperties = properties;
+            if (!sidecar || currentProperties == null || sidecarLineCount <= currentProperties.size()) {
+                // nothing appended since loaded or already compact
+                return;
+            }
+            CustomBuildPropertiesSidecar.write(CustomBuildPropertiesSidecar.getFile(run), currentProperties, sidecarSequence);
+            sidecarLineCount = currentProperties.size();
+        }
+    }
+
+    /**
+     * @return the sequence number of the last change, <code>-1</code> if not stored in the sidecar file
+     */
+    public long getSequence() {
+        if (!sidecar) {
+            return -1L;
+        }
+        snapshot();
+        synchronized (this) {
+            return sidecarSequence;
+        }
+    }
+
+    /**
+     * Replay the changes stored in the sidecar file in order, e.g. to catch up with changes after a restart. Changes
+     * before the last compaction are replayed as a single batch without old values.
+     *
+     * @param afterSequence only changes with a greater sequence number are replayed, <code>-1</code> for all
+     * @return the sequence number of the last change, <code>-1</code> if not stored in the sidecar file
+     */
+    public long replayChanges(long afterSequence, CustomBuildPropertiesListener listener) throws IOException {
+        if (!sidecar) {
+            return -1L;
+        }
+        return CustomBuildPropertiesSidecar.replay(CustomBuildPropertiesSidecar.getFile(run), afterSequence, run, listener);
     }
 
     /**
@@ -210,13 +550,108 @@ public void doSet(StaplerRequest2 req, StaplerResponse2 rsp) throws Exception {
         Object oldValue;
         synchronized (run) {
             oldValue = setPropertyInternal(key, newValue, false, false);
-            run.save();
+            CustomBuildPropertiesPersistence.save(run);
         }
         CustomBuildPropertiesListener.fireChanged(run, key, oldValue, newValue);
 
         writeValue(rsp, oldValue);
     }
 
+    /**
+     * Get multiple properties as JSON document like <code>{"properties": [{"key": "k", "value": "42", "valueType": "java.lang.Integer"}]}</code>.
+     * Without <code>key</code> parameters all properties are returned.
+     */
+    public void doGetAll(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException, ServletException {
+        run.checkPermission(Item.READ);
+
+        Map<String, Object> currentProperties = getProperties();
+        String[] keys = req.getParameterValues("key");
+        Map<String, Object> values;
+        if (keys == null) {
+            values = new TreeMap<>(currentProperties);
+        } else {
+            values = new LinkedHashMap<>();
+            for (String key : keys) {
+                if (currentProperties.containsKey(key)) {
+                    values.put(key, currentProperties.get(key));
+                }
+            }
+        }
+
+        writeJson(rsp, values);
+    }
+
+    /**
+     * Set multiple properties from a JSON document like
+     * <code>{"properties": [{"key": "k", "value": "42", "valueType": "java.lang.Integer"}], "onlySetIfAbsent": false}</code>.
+     * The document is either posted as <code>application/json</code> or as form parameter <code>json</code>.
+     * Responds with the previous values of the keys which have been set, or with status 400 if the document is
+     * malformed.
+     */
+    @RequirePOST
+    public void doSetAll(StaplerRequest2 req, StaplerResponse2 rsp) throws Exception {
+        run.checkPermission(Run.UPDATE);
+
+        boolean onlySetIfAbsent;
+        Map<String, Object> newValues;
+        try {
+            Map<String, Object> submittedJson = RemoteJsonParser.parseObject(readJson(req));
+            onlySetIfAbsent = isOnlySetIfAbsent(submittedJson);
+            newValues = fromRemoteJson(submittedJson);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        Map<String, Object> oldValues;
+        synchronized (run) {
+            oldValues = setPropertiesInternal(newValues, onlySetIfAbsent, false);
+            CustomBuildPropertiesPersistence.save(run);
+        }
+        fireChanged(oldValues, newValues);
+
+        writeJson(rsp, oldValues);
+    }
+
+    /**
+     * Get the properties with keys starting with <code>prefix</code> or with keys from <code>from</code> (inclusive)
+     * to <code>to</code> (exclusive) as JSON document like <code>getAll</code>, sorted by key.
+     */
+    public void doGetRange(StaplerRequest2 req, StaplerResponse2 rsp, @QueryParameter String prefix,
+                           @QueryParameter String from, @QueryParameter String to) throws IOException {
+        run.checkPermission(Item.READ);
+
+        Map<String, Object> values;
+        if (prefix != null) {
+            values = getPropertiesWithPrefix(prefix);
+        } else {
+            values = subMap(Util.fixEmpty(from), Util.fixEmpty(to));
+        }
+
+        writeJson(rsp, values);
+    }
+
+    /**
+     * Export the properties sorted by key without copying them, as JSON document like
+     * <code>{"total": 120, "offset": 100, "properties": [{"key": "k", "value": "42", "valueType": "java.lang.Integer"}]}</code>
+     * or with <code>format=csv</code> as CSV with columns key, value and valueType.
+     *
+     * @param prefix only properties with keys starting with this prefix
+     * @param offset number of properties to skip
+     * @param limit  maximum number of properties, all if not positive
+     */
+    public void doExport(StaplerRequest2 req, StaplerResponse2 rsp, @QueryParameter String prefix,
+                         @QueryParameter int offset, @QueryParameter int limit, @QueryParameter String format) throws IOException {
+        run.checkPermission(Item.READ);
+
+        boolean csv = "csv".equals(format);
+        setHeaders(rsp);
+        rsp.setContentType(csv ? "text/csv;charset=UTF-8" : "application/json;charset=UTF-8");
+        PrintWriter writer = rsp.getWriter();
+        writeExport(writer, getSortedKeys(), Util.fixEmpty(prefix), offset, limit, csv);
+        writer.close();
+    }
+
     /**
      * @deprecated Use {@link #doSet(StaplerRequest2, StaplerResponse2)} instead.
      */
@@ -227,10 +662,14 @@ public void doSetPost(StaplerRequest2 req, StaplerResponse2 rsp) throws Exceptio
         doSet(req, rsp);
     }
 
+    static boolean isSupportedRemoteType(String valueType) {
+        return SUPPORTED_REMOTE_TYPES.containsKey(valueType);
+    }
+
     /**
      * Only visible for testing.
      */
-    Object parseRemoteValue(String value, String valueType) {
+    static Object parseRemoteValue(String value, String valueType) {
         if (valueType == null) {
             return value;
         }
@@ -243,6 +682,188 @@ Object parseRemoteValue(String value, String valueType) {
         return parser.apply(value);
     }
 
+    /**
+     * Only visible for testing.
+     *
+     * @param json document parsed by {@link RemoteJsonParser}
+     * @throws IllegalArgumentException if the document does not match the remote JSON format
+     */
+    Map<String, Object> fromRemoteJson(Map<String, Object> json) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        Object jsonProperties = json.get("properties");
+        if (jsonProperties == null) {
+            return values;
+        }
+        if (!(jsonProperties instanceof List)) {
+            throw new IllegalArgumentException("properties must be an array");
+        }
+        for (Object jsonProperty : (List<?>) jsonProperties) {
+            if (!(jsonProperty instanceof Map)) {
+                throw new IllegalArgumentException("properties must only contain objects");
+            }
+            Map<?, ?> fields = (Map<?, ?>) jsonProperty;
+            String key = getRemoteJsonString(fields, "key");
+            if (key == null) {
+                throw new IllegalArgumentException("Missing key");
+            }
+            String value = getRemoteJsonString(fields, "value");
+            values.put(key, value != null ? parseRemoteValue(value, getRemoteJsonString(fields, "valueType")) : null);
+        }
+        return values;
+    }
+
+    /**
+     * @return the string, number or boolean field as string, exactly as sent
+     */
+    private static String getRemoteJsonString(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        if (value instanceof Map || value instanceof List) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Only visible for testing.
+     */
+    static boolean isOnlySetIfAbsent(Map<String, Object> json) {
+        Object onlySetIfAbsent = json.get("onlySetIfAbsent");
+        if (onlySetIfAbsent != null && !(onlySetIfAbsent instanceof Boolean)) {
+            throw new IllegalArgumentException("onlySetIfAbsent must be true or false");
+        }
+        return Boolean.TRUE.equals(onlySetIfAbsent);
+    }
+
+    /**
+     * Only visible for testing.
+     */
+    void writeRemoteJson(Writer writer, Map<String, Object> values) throws IOException {
+        writer.write("{\"properties\":");
+        writeRemoteJsonProperties(writer, values);
+        writer.write('}');
+    }
+
+    /**
+     * Write the JSON array of the properties part of the remote JSON format.
+     */
+    static void writeRemoteJsonProperties(Writer writer, Map<String, ?> values) throws IOException {
+        writer.write('[');
+        boolean first = true;
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writeRemoteJsonProperty(writer, entry.getKey(), entry.getValue());
+        }
+        writer.write(']');
+    }
+
+    private static void writeRemoteJsonProperty(Writer writer, String key, Object value) throws IOException {
+        writer.write("{\"key\":");
+        writer.write(JSONUtils.quote(key));
+        if (value != null) {
+            String valueType = getRemoteValueType(value);
+            writer.write(",\"value\":");
+            writer.write(JSONUtils.quote(toRemoteString(value)));
+            if (valueType != null) {
+                writer.write(",\"valueType\":");
+                writer.write(JSONUtils.quote(valueType));
+            }
+        }
+        writer.write('}');
+    }
+
+    /**
+     * @return the value type to transfer with the value, <code>null</code> for strings and unsupported types
+     */
+    private static String getRemoteValueType(Object value) {
+        String valueType = value instanceof Date ? Date.class.getName() : value.getClass().getName();
+        return !String.class.getName().equals(valueType) && SUPPORTED_REMOTE_TYPES.containsKey(valueType) ? valueType : null;
+    }
+
+    /**
+     * Write the page of the properties with the prefix, sorted by key, straight from the snapshot.
+     *
+     * @param limit maximum number of properties, all if not positive
+     */
+    static void writeExport(Writer writer, SortedKeys sortedKeys, String prefix, int offset, int limit, boolean csv) throws IOException {
+        int start = prefix != null ? sortedKeys.lowerBound(prefix) : 0;
+        int end = prefix != null ? sortedKeys.prefixEnd(prefix) : sortedKeys.size();
+        int from = (int) Math.min((long) start + Math.max(offset, 0), end);
+        int to = limit > 0 ? (int) Math.min((long) from + limit, end) : end;
+
+        if (csv) {
+            writer.write("key,value,valueType\r\n");
+            for (int i = from; i < to; i++) {
+                Object value = sortedKeys.getValue(i);
+                writer.write(toCsvCell(sortedKeys.getKey(i)));
+                writer.write(',');
+                writer.write(toCsvCell(toRemoteString(value)));
+                writer.write(',');
+                writer.write(toCsvCell(value != null ? getRemoteValueType(value) : null));
+                writer.write("\r\n");
+            }
+            return;
+        }
+
+        writer.write("{\"total\":");
+        writer.write(String.valueOf(end - start));
+        writer.write(",\"offset\":");
+        writer.write(String.valueOf(from - start));
+        writer.write(",\"properties\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                writer.write(',');
+            }
+            writeRemoteJsonProperty(writer, sortedKeys.getKey(i), sortedKeys.getValue(i));
+        }
+        writer.write("]}");
+    }
+
+    static String toCsvCell(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @return the value as used by the remote API, dates in ISO-8601 format
+     */
+    public static String toRemoteString(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Date ? ((Date) value).toInstant().toString() : value.toString();
+    }
+
+    /**
+     * @return the raw JSON document of the request
+     */
+    private String readJson(StaplerRequest2 req) throws IOException {
+        String contentType = req.getContentType();
+        if (contentType != null && contentType.startsWith("application/json")) {
+            return IOUtils.toString(req.getReader());
+        }
+        String json = req.getParameter("json");
+        if (json == null) {
+            throw new IllegalArgumentException("Missing form parameter json");
+        }
+        return json;
+    }
+
+    private void writeJson(StaplerResponse2 rsp, Map<String, Object> values) throws IOException {
+        setHeaders(rsp);
+        rsp.setContentType("application/json;charset=UTF-8");
+        PrintWriter writer = rsp.getWriter();
+        writeRemoteJson(writer, values);
+        writer.close();
+    }
+
     private void writeValue(StaplerResponse2 rsp, Object value) throws IOException {
         setHeaders(rsp);
         rsp.setContentType("text/plain;charset=UTF-8");
@@ -257,11 +878,16 @@ private void setHeaders(StaplerResponse2 rsp) {
 
     private Object setPropertyInternal(String key, Object newValue, boolean onlyIfAbsent, boolean fireEvent) {
         Object oldValue;
-        synchronized (properties) {
-            if (onlyIfAbsent && properties.containsKey(key)) {
+        synchronized (this) {
+            Map<String, Object> currentProperties = snapshotForWrite();
+            if (onlyIfAbsent && currentProperties.containsKey(key)) {
                 return null;
             }
-            oldValue = properties.put(key, newValue);
+            oldValue = currentProperties.get(key);
+            Map<String, Object> changes = Collections.singletonMap(key, newValue);
+            Map<String, Object> changedProperties = applyChanges(currentProperties, changes);
+            storeChanges(changedProperties, changes);
+            properties = changedProperties;
         }
         if (fireEvent) {
             CustomBuildPropertiesListener.fireChanged(run, key, oldValue, newValue);
@@ -269,4 +895,119 @@ private Object setPropertyInternal(String key, Object newValue, boolean onlyIfAb
         return oldValue;
     }
 
+    /**
+     * @return the previous values of the keys which have been set
+     */
+    Map<String, Object> setPropertiesInternal(Map<String, ?> newValues, boolean onlyIfAbsent, boolean fireEvent) {
+        Map<String, Object> oldValues = new LinkedHashMap<>();
+        synchronized (this) {
+            Map<String, Object> currentProperties = snapshotForWrite();
+            Map<String, Object> changes = new LinkedHashMap<>();
+            for (Map.Entry<String, ?> entry : newValues.entrySet()) {
+                String key = entry.getKey();
+                if (onlyIfAbsent && currentProperties.containsKey(key)) {
+                    continue;
+                }
+                oldValues.put(key, currentProperties.get(key));
+                changes.put(key, entry.getValue());
+            }
+            if (!changes.isEmpty()) {
+                Map<String, Object> changedProperties = applyChanges(currentProperties, changes);
+                storeChanges(changedProperties, changes);
+                properties = changedProperties;
+            }
+        }
+        if (fireEvent) {
+            fireChanged(oldValues, newValues);
+        }
+        return oldValues;
+    }
+
+    /**
+     * Remove the properties with keys starting with one of the prefixes, except the kept keys. Listeners are not
+     * notified, the caller fires the removals together with the following write.
+     *
+     * @return the previous values of the removed keys
+     */
+    Map<String, Object> removePropertiesInternal(Collection<String> keyPrefixes, Set<String> keptKeys) {
+        if (keyPrefixes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> oldValues = new LinkedHashMap<>();
+        synchronized (this) {
+            Map<String, Object> currentProperties = snapshotForWrite();
+            for (Map.Entry<String, Object> entry : currentProperties.entrySet()) {
+                String key = entry.getKey();
+                if (!keptKeys.contains(key) && startsWithAny(key, keyPrefixes)) {
+                    oldValues.put(key, entry.getValue());
+                }
+            }
+            if (!oldValues.isEmpty()) {
+                Map<String, Object> changedProperties = new HashMap<>(currentProperties);
+                Map<String, Object> changes = new LinkedHashMap<>();
+                for (String key : oldValues.keySet()) {
+                    changedProperties.remove(key);
+                    changes.put(key, CustomBuildPropertiesSidecar.REMOVED);
+                }
+                storeChanges(changedProperties, changes);
+                properties = toSnapshot(changedProperties);
+            }
+        }
+        return oldValues;
+    }
+
+    private static boolean startsWithAny(String key, Collection<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the next snapshot; a compact snapshot is merged with the changes instead of copied and sorted again
+     */
+    private static Map<String, Object> applyChanges(Map<String, Object> currentProperties, Map<String, ?> changes) {
+        if (CompactPropertiesMap.ENABLED && currentProperties instanceof CompactPropertiesMap) {
+            return ((CompactPropertiesMap) currentProperties).with(changes);
+        }
+        Map<String, Object> changedProperties = new HashMap<>(currentProperties);
+        changedProperties.putAll(changes);
+        return toSnapshot(changedProperties);
+    }
+
+    private static Map<String, Object> toSnapshot(Map<String, Object> changedProperties) {
+        return CompactPropertiesMap.ENABLED ? CompactPropertiesMap.of(changedProperties) : changedProperties;
+    }
+
+    /**
+     * View tables built for a specific snapshot of the properties.
+     */
+    private static final class CachedViewTables {
+
+        private final Map<String, Object> properties;
+        private final MarkupFormatter markupFormatter;
+        private final List<CbpTable> tables;
+
+        private CachedViewTables(Map<String, Object> properties, MarkupFormatter markupFormatter, List<CbpTable> tables) {
+            this.properties = properties;
+            this.markupFormatter = markupFormatter;
+            this.tables = tables;
+        }
+
+    }
+
+    /**
+     * @param oldValues the previous values of the changed keys; keys not in <code>newValues</code> have been removed
+     */
+    void fireChanged(Map<String, Object> oldValues, Map<String, ?> newValues) {
+        Map<String, CustomBuildPropertiesListener.Change> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : oldValues.entrySet()) {
+            String key = entry.getKey();
+            changes.put(key, new CustomBuildPropertiesListener.Change(entry.getValue(), newValues.get(key), !newValues.containsKey(key)));
+        }
+        CustomBuildPropertiesListener.fireChanged(run, Collections.unmodifiableMap(changes));
+    }
+
 }
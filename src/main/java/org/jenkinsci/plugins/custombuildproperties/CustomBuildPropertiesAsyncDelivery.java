@@ -0,0 +1,261 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.model.Run;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers events to {@link CustomBuildPropertiesListener}s with {@link CustomBuildPropertiesListener.Delivery#ASYNC}.
+ * <p>
+ * Events are queued per run and delivered in order by a bounded thread pool. Events are never dropped: if
+ * <code>maxQueued</code> events are queued, the writer waits until there is room for the events of all async listeners
+ * of its change (backpressure). Writers fire events after releasing the lock of the run, so delivering threads are
+ * never blocked by a waiting writer. A writer still holding the lock of the run and listeners writing from a delivering
+ * thread do not wait, their events are queued beyond the limit and counted.
+ * <p>
+ * The pool size and the queue limit are set by the system properties
+ * <code>org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesAsyncDelivery.maxThreads</code> (default 2)
+ * and <code>maxQueued</code> (default 10000). Counters of queued, delivered and throttled events help to size them.
+ */
+public final class CustomBuildPropertiesAsyncDelivery {
+
+    private static final Logger LOGGER = Logger.getLogger(CustomBuildPropertiesAsyncDelivery.class.getName());
+
+    private static final String PROPERTY_PREFIX = CustomBuildPropertiesAsyncDelivery.class.getName();
+
+    private static final int MAX_THREADS = SystemProperties.getInteger(PROPERTY_PREFIX + ".maxThreads", 2);
+    private static final int MAX_QUEUED = SystemProperties.getInteger(PROPERTY_PREFIX + ".maxQueued", 10000);
+
+    private static final CustomBuildPropertiesAsyncDelivery INSTANCE;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), CustomBuildPropertiesAsyncDelivery.class.getSimpleName()));
+        executor.allowCoreThreadTimeOut(true);
+        INSTANCE = new CustomBuildPropertiesAsyncDelivery(executor, MAX_QUEUED);
+    }
+
+    /**
+     * Whether the current thread delivers events, so it must not wait for room.
+     */
+    private static final ThreadLocal<Boolean> DELIVERING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final Executor executor;
+    private final int maxQueued;
+
+    private final ConcurrentMap<String, RunQueue> queues = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger maxQueuedCount = new AtomicInteger();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    CustomBuildPropertiesAsyncDelivery(Executor executor, int maxQueued) {
+        super();
+        this.executor = executor;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxQueued);
+    }
+
+    /**
+     * @return number of events currently queued
+     */
+    public static int getQueuedCount() {
+        return INSTANCE.queuedCount.get();
+    }
+
+    /**
+     * @return highest number of events queued at the same time
+     */
+    public static int getMaxQueuedCount() {
+        return INSTANCE.maxQueuedCount.get();
+    }
+
+    /**
+     * @return number of events delivered
+     */
+    public static long getDeliveredCount() {
+        return INSTANCE.deliveredCount.get();
+    }
+
+    /**
+     * @return number of writers which had to wait because the queue was full
+     */
+    public static long getThrottledCount() {
+        return INSTANCE.throttledCount.get();
+    }
+
+    /**
+     * @return number of events queued beyond <code>maxQueued</code> because their writer could not wait
+     */
+    public static long getOverflowCount() {
+        return INSTANCE.overflowCount.get();
+    }
+
+    /**
+     * Queue the events of one change, waiting for room if the queue is full.
+     */
+    static void enqueue(Run<?, ?> run, List<Runnable> events) {
+        INSTANCE.enqueueInternal(run != null ? run.getExternalizableId() : "", run, events);
+    }
+
+    void enqueueInternal(String runId, Runnable event) {
+        enqueueInternal(runId, null, Collections.singletonList(event));
+    }
+
+    /**
+     * @param lock the lock of the run, the caller does not wait while holding it
+     */
+    void enqueueInternal(String runId, Object lock, List<Runnable> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        final boolean permitted = acquire(lock, events.size());
+        for (Runnable event : events) {
+            Runnable queuedEvent = () -> {
+                try {
+                    event.run();
+                } finally {
+                    queuedCount.decrementAndGet();
+                    deliveredCount.incrementAndGet();
+                    if (permitted) {
+                        permits.release();
+                    }
+                }
+            };
+
+            maxQueuedCount.accumulateAndGet(queuedCount.incrementAndGet(), Math::max);
+            RunQueue runQueue = queues.compute(runId, (notUsed, existing) -> {
+                RunQueue result = existing != null ? existing : new RunQueue(runId);
+                result.events.add(queuedEvent);
+                return result;
+            });
+            runQueue.schedule();
+        }
+    }
+
+    /**
+     * Reserve room for all events at once, so writers waiting concurrently cannot starve each other.
+     *
+     * @return <code>false</code> if the events are queued beyond the limit without a permit
+     */
+    private boolean acquire(Object lock, int count) {
+        if (permits.tryAcquire(count)) {
+            return true;
+        }
+        if (count > maxQueued || lock != null && Thread.holdsLock(lock) || DELIVERING.get()) {
+            if (overflowCount.getAndAdd(count) == 0) {
+                LOGGER.log(Level.WARNING, "queue full, queueing events beyond limit of {0} for writers which cannot wait", maxQueued);
+            }
+            return false;
+        }
+        throttledCount.incrementAndGet();
+        permits.acquireUninterruptibly(count);
+        return true;
+    }
+
+    int getQueuedCountInternal() {
+        return queuedCount.get();
+    }
+
+    long getDeliveredCountInternal() {
+        return deliveredCount.get();
+    }
+
+    long getThrottledCountInternal() {
+        return throttledCount.get();
+    }
+
+    long getOverflowCountInternal() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Events of a single run, drained by at most one thread at a time to keep their order.
+     */
+    private final class RunQueue implements Runnable {
+
+        private final String runId;
+        private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private RunQueue(String runId) {
+            this.runId = runId;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            DELIVERING.set(Boolean.TRUE);
+            try {
+                Runnable event;
+                while ((event = events.poll()) != null) {
+                    try {
+                        event.run();
+                    } catch (Throwable e) {
+                        LOGGER.log(Level.WARNING, CustomBuildPropertiesListener.class.getSimpleName() + " failed", e);
+                    }
+                }
+            } finally {
+                DELIVERING.remove();
+            }
+            scheduled.set(false);
+            // events are only added inside compute, so an empty queue can be removed safely
+            queues.computeIfPresent(runId, (notUsed, existing) -> existing == this && events.isEmpty() ? null : existing);
+            if (!events.isEmpty()) {
+                schedule();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Item;
+import hudson.model.Job;
+import jenkins.model.Jenkins;
+import jenkins.model.TransientActionFactory;
+import org.jenkinsci.plugins.custombuildproperties.index.CustomBuildPropertiesSeriesIndex;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+
+/**
+ * Custom build properties across the builds of a job.
+ */
+public final class CustomBuildPropertiesJobAction implements Action {
+
+    private static final String FORMAT_CSV = "csv";
+
+    private final Job<?, ?> job;
+
+    public CustomBuildPropertiesJobAction(Job<?, ?> job) {
+        super();
+
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Custom Build Properties";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "custombuildproperties";
+    }
+
+    /**
+     * Get the values of the given <code>key</code> parameters across builds, latest build first, as JSON document
+     * like <code>{"builds": [{"number": 7, "properties": [{"key": "k", "value": "42", "valueType": "java.lang.Integer"}]}]}</code>
+     * or with <code>format=csv</code> as CSV with a column per key. Only builds having a value for at least one key
+     * are included.
+     *
+     * @param limit maximum number of builds, at most and per default <code>maxLimit</code> (default 1000) of
+     *              {@link CustomBuildPropertiesSeriesIndex}
+     */
+    public void doSeries(StaplerRequest2 req, StaplerResponse2 rsp, @QueryParameter String format, @QueryParameter int limit) throws IOException {
+        job.checkPermission(Item.READ);
+
+        String[] keys = req.getParameterValues("key");
+        if (keys == null || keys.length == 0) {
+            rsp.sendError(StaplerResponse2.SC_BAD_REQUEST, "At least one key parameter is required");
+            return;
+        }
+
+        Map<String, NavigableMap<Integer, Object>> seriesByKey = CustomBuildPropertiesSeriesIndex.get().getSeries(job, Arrays.asList(keys), limit);
+        List<Integer> buildNumbers = getBuildNumbers(seriesByKey.values(), CustomBuildPropertiesSeriesIndex.getEffectiveLimit(limit));
+
+        rsp.setHeader("X-Jenkins", Jenkins.VERSION);
+        if (FORMAT_CSV.equals(format)) {
+            rsp.setContentType("text/csv;charset=UTF-8");
+            PrintWriter writer = rsp.getWriter();
+            writeCsv(writer, seriesByKey, buildNumbers);
+            writer.close();
+        } else {
+            rsp.setContentType("application/json;charset=UTF-8");
+            PrintWriter writer = rsp.getWriter();
+            writeJson(writer, seriesByKey, buildNumbers);
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the latest build numbers contained in any of the series, descending
+     */
+    static List<Integer> getBuildNumbers(Collection<NavigableMap<Integer, Object>> series, int limit) {
+        TreeSet<Integer> buildNumbers = new TreeSet<>(Comparator.reverseOrder());
+        for (NavigableMap<Integer, Object> values : series) {
+            Iterator<Integer> buildNumbersI = values.keySet().iterator();
+            for (int i = 0; i < limit && buildNumbersI.hasNext(); i++) {
+                buildNumbers.add(buildNumbersI.next());
+            }
+        }
+        List<Integer> result = new ArrayList<>(Math.min(limit, buildNumbers.size()));
+        Iterator<Integer> buildNumbersI = buildNumbers.iterator();
+        for (int i = 0; i < limit && buildNumbersI.hasNext(); i++) {
+            result.add(buildNumbersI.next());
+        }
+        return result;
+    }
+
+    static void writeJson(Writer writer, Map<String, NavigableMap<Integer, Object>> seriesByKey, List<Integer> buildNumbers) throws IOException {
+        writer.write("{\"builds\":[");
+        Map<String, Object> values = new LinkedHashMap<>();
+        boolean first = true;
+        for (Integer buildNumber : buildNumbers) {
+            values.clear();
+            for (Map.Entry<String, NavigableMap<Integer, Object>> entry : seriesByKey.entrySet()) {
+                Object value = entry.getValue().get(buildNumber);
+                if (value != null) {
+                    values.put(entry.getKey(), value);
+                }
+            }
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write("{\"number\":");
+            writer.write(String.valueOf(buildNumber));
+            writer.write(",\"properties\":");
+            CustomBuildPropertiesAction.writeRemoteJsonProperties(writer, values);
+            writer.write('}');
+        }
+        writer.write("]}");
+    }
+
+    static void writeCsv(Writer writer, Map<String, NavigableMap<Integer, Object>> seriesByKey, List<Integer> buildNumbers) throws IOException {
+        writer.write("build");
+        for (String key : seriesByKey.keySet()) {
+            writer.write(',');
+            writer.write(CustomBuildPropertiesAction.toCsvCell(key));
+        }
+        writer.write("\r\n");
+        for (Integer buildNumber : buildNumbers) {
+            writer.write(String.valueOf(buildNumber));
+            for (NavigableMap<Integer, Object> values : seriesByKey.values()) {
+                writer.write(',');
+                writer.write(CustomBuildPropertiesAction.toCsvCell(CustomBuildPropertiesAction.toRemoteString(values.get(buildNumber))));
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    @Extension
+    public static final class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @NonNull
+        @Override
+        public Collection<? extends Action> createFor(@NonNull Job target) {
+            return Collections.singleton(new CustomBuildPropertiesJobAction(target));
+        }
+
+    }
+
+}
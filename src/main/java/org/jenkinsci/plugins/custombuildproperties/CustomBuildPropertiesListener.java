@@ -28,6 +28,10 @@
 import hudson.ExtensionPoint;
 import hudson.model.Run;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,21 +53,110 @@ public static ExtensionList<CustomBuildPropertiesListener> all() {
      * Notify listeners about change of CustomBuildProperty.
      */
     static void fireChanged(Run run, String key, Object oldValue, Object newValue) {
+        fireChanged(run, Collections.singletonMap(key, new Change(oldValue, newValue)));
+    }
+
+    /**
+     * Notify listeners about all changes of one write. Callers must not hold the lock of the run, because queueing
+     * the events of async listeners may wait for room.
+     */
+    static void fireChanged(Run run, Map<String, Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Runnable> asyncEvents = new ArrayList<>();
         for (CustomBuildPropertiesListener l : all()) {
+            if (l.getDelivery() == Delivery.ASYNC) {
+                asyncEvents.add(() -> l.onCustomBuildPropertiesChanged(run, changes));
+                continue;
+            }
             try {
-                l.onCustomBuildPropertyChanged(run, key, oldValue, newValue);
+                l.onCustomBuildPropertiesChanged(run, changes);
             } catch (Throwable e) {
                 report(e);
             }
         }
+        CustomBuildPropertiesAsyncDelivery.enqueue(run, asyncEvents);
     }
 
     private static void report(Throwable e) {
         LOGGER.log(Level.WARNING, CustomBuildPropertiesListener.class.getSimpleName() + " failed", e);
     }
 
+    /**
+     * How events are delivered to this listener. Listeners doing slow work (e.g. pushing to external systems) should
+     * use {@link Delivery#ASYNC}, so writers of properties are not stalled.
+     */
+    public Delivery getDelivery() {
+        return Delivery.SYNC;
+    }
+
     public void onCustomBuildPropertyChanged(Run run, String key, Object oldValue, Object newValue) {
         // empty default implementation
     }
 
+    /**
+     * Called once with all changes of one write, e.g. of <code>setCustomBuildProperties</code> or <code>setJUnitCounts</code>.
+     * The default implementation calls {@link #onCustomBuildPropertyChanged(Run, String, Object, Object)} per key.
+     *
+     * @param changes unmodifiable map of key to change, in the order the keys have been written
+     */
+    public void onCustomBuildPropertiesChanged(Run run, Map<String, Change> changes) {
+        for (Map.Entry<String, Change> entry : changes.entrySet()) {
+            onCustomBuildPropertyChanged(run, entry.getKey(), entry.getValue().getOldValue(), entry.getValue().getNewValue());
+        }
+    }
+
+    public enum Delivery {
+        /**
+         * Called by the thread changing the properties, after it released the lock of the run.
+         */
+        SYNC,
+        /**
+         * Called by a background thread; events of a run are delivered in order.
+         *
+         * @see CustomBuildPropertiesAsyncDelivery
+         */
+        ASYNC
+    }
+
+    /**
+     * Change of the value of a single key.
+     */
+    public static final class Change {
+
+        private final Object oldValue;
+        private final Object newValue;
+        private final boolean removed;
+
+        public Change(Object oldValue, Object newValue) {
+            this(oldValue, newValue, false);
+        }
+
+        /**
+         * @param removed whether the key has been removed, <code>newValue</code> is <code>null</code> then
+         */
+        public Change(Object oldValue, Object newValue, boolean removed) {
+            this.oldValue = oldValue;
+            this.newValue = removed ? null : newValue;
+            this.removed = removed;
+        }
+
+        public Object getOldValue() {
+            return oldValue;
+        }
+
+        public Object getNewValue() {
+            return newValue;
+        }
+
+        /**
+         * @return whether the key has been removed, as opposed to set to <code>null</code>
+         */
+        public boolean isRemoved() {
+            return removed;
+        }
+
+    }
+
 }
@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves runs after their custom build properties changed.
+ * <p>
+ * Per default a run is saved immediately. With a positive save delay a building run is only marked dirty and saved in
+ * the background, so that all changes within the delay are coalesced into a single save. Dirty runs are flushed on
+ * build completion and on shutdown. Runs which are not building anymore are always saved immediately, because only
+ * building runs are guaranteed to stay in memory until they are flushed.
+ * <p>
+ * The delay is set in milliseconds by the system property
+ * <code>org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesPersistence.saveDelayMillis</code>.
+ */
+public final class CustomBuildPropertiesPersistence {
+
+    private static final Logger LOGGER = Logger.getLogger(CustomBuildPropertiesPersistence.class.getName());
+
+    /**
+     * Delay in milliseconds used to coalesce saves; <code>0</code> saves immediately. Non-final for testing.
+     */
+    static long SAVE_DELAY_MILLIS = SystemProperties.getLong(CustomBuildPropertiesPersistence.class.getName() + ".saveDelayMillis", 0L);
+
+    private static final DirtyRuns DIRTY_RUNS = new DirtyRuns(
+            flushTask -> Timer.get().schedule(flushTask, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS),
+            CustomBuildPropertiesPersistence::flushById);
+
+    private CustomBuildPropertiesPersistence() {
+        super();
+    }
+
+    /**
+     * Save the run now or mark it dirty, depending on the configured save delay. Callers have to hold the lock of the run.
+     */
+    static void save(Run<?, ?> run) throws IOException {
+        final CustomBuildPropertiesAction action = run.getAction(CustomBuildPropertiesAction.class);
+        if (action != null && action.isPersistedWithoutRunSave()) {
+            return;
+        }
+
+        if (SAVE_DELAY_MILLIS <= 0 || !run.isBuilding()) {
+            saveRun(run);
+            return;
+        }
+
+        DIRTY_RUNS.add(run.getExternalizableId());
+    }
+
+    /**
+     * Save the run if it is marked dirty.
+     */
+    static void flush(Run<?, ?> run) {
+        if (DIRTY_RUNS.remove(run.getExternalizableId())) {
+            saveLocked(run);
+        }
+    }
+
+    private static void flushById(String runId) {
+        final Run<?, ?> run = Run.fromExternalizableId(runId);
+        if (run == null) {
+            LOGGER.log(Level.FINE, "Dirty run is gone: {0}", runId);
+            return;
+        }
+        saveLocked(run);
+    }
+
+    private static void saveLocked(Run<?, ?> run) {
+        try {
+            synchronized (run) {
+                saveRun(run);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + run, e);
+        }
+    }
+
+    /**
+     * Save the run and remember if only the stub of sidecar properties was written.
+     */
+    private static void saveRun(Run<?, ?> run) throws IOException {
+        final CustomBuildPropertiesAction action = run.getAction(CustomBuildPropertiesAction.class);
+        final boolean sidecar = action != null && action.isSidecar();
+        run.save();
+        if (sidecar) {
+            action.onStubSaved();
+        }
+    }
+
+    static void flushAll() {
+        DIRTY_RUNS.flushAll();
+    }
+
+    @Terminator
+    public static void flushOnShutdown() {
+        LOGGER.log(Level.FINE, "flushOnShutdown: {0} dirty runs", DIRTY_RUNS.size());
+        flushAll();
+    }
+
+    /**
+     * Externalizable ids of the dirty runs, so no run is kept in memory by being dirty.
+     */
+    static final class DirtyRuns {
+
+        private final Set<String> runIds = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final Consumer<Runnable> scheduler;
+        private final Consumer<String> flusher;
+
+        /**
+         * @param scheduler runs the given flush task after the save delay
+         * @param flusher   saves the run with the given id
+         */
+        DirtyRuns(Consumer<Runnable> scheduler, Consumer<String> flusher) {
+            this.scheduler = scheduler;
+            this.flusher = flusher;
+        }
+
+        /**
+         * Mark the run dirty and schedule a flush unless one is pending.
+         */
+        void add(String runId) {
+            runIds.add(runId);
+            if (flushScheduled.compareAndSet(false, true)) {
+                scheduler.accept(this::flushAll);
+            }
+        }
+
+        /**
+         * @return <code>true</code> if the run was dirty
+         */
+        boolean remove(String runId) {
+            return runIds.remove(runId);
+        }
+
+        int size() {
+            return runIds.size();
+        }
+
+        void flushAll() {
+            flushScheduled.set(false);
+            for (String runId : new ArrayList<>(runIds)) {
+                if (!runIds.remove(runId)) {
+                    // flushed or deleted meanwhile
+                    continue;
+                }
+                try {
+                    flusher.accept(runId);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to save " + runId, e);
+                }
+            }
+        }
+
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            flush(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            DIRTY_RUNS.remove(run.getExternalizableId());
+        }
+
+    }
+
+}
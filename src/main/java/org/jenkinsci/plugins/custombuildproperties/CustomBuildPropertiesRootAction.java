@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.sf.json.util.JSONUtils;
+import org.jenkinsci.plugins.custombuildproperties.index.CustomBuildPropertiesValueIndex;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom build properties across all jobs.
+ */
+@Extension
+public final class CustomBuildPropertiesRootAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Custom Build Properties";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "custombuildproperties";
+    }
+
+    /**
+     * Find builds by custom build property value as JSON document like
+     * <code>{"complete": true, "builds": [{"job": "folder/job", "number": 7, "url": "job/folder/job/job/7/"}]}</code>.
+     * <code>complete</code> is <code>false</code> while the index is rebuilt after startup. Queries for a
+     * <code>job</code> index the latest builds of that job first if the rebuild did not reach it yet, and are
+     * complete once the rest of the job is indexed in the background.
+     *
+     * @param job   only builds of this job (full name)
+     * @param limit maximum number of builds, all if not positive
+     */
+    public void doFind(StaplerRequest2 req, StaplerResponse2 rsp, @QueryParameter(required = true) String key,
+                       @QueryParameter(required = true) String value, @QueryParameter String job,
+                       @QueryParameter int limit) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+
+        if (!CustomBuildPropertiesValueIndex.get().isIndexed(key)) {
+            rsp.sendError(StaplerResponse2.SC_BAD_REQUEST, "Key is not indexed: " + key);
+            return;
+        }
+
+        CustomBuildPropertiesValueIndex index = CustomBuildPropertiesValueIndex.get();
+        String queriedJobFullName = Util.fixEmptyAndTrim(job);
+        boolean complete = index.isComplete();
+        if (queriedJobFullName != null) {
+            Job<?, ?> targetJob = Jenkins.get().getItemByFullName(queriedJobFullName, Job.class);
+            complete = targetJob == null || index.scanLatest(targetJob);
+        }
+        List<Map<String, Object>> builds = FindBuildsByCustomBuildPropertyStep.find(key, value, queriedJobFullName, limit);
+
+        rsp.setHeader("X-Jenkins", Jenkins.VERSION);
+        rsp.setContentType("application/json;charset=UTF-8");
+        PrintWriter writer = rsp.getWriter();
+        writer.write("{\"complete\":");
+        writer.write(String.valueOf(complete));
+        writer.write(",\"builds\":[");
+        boolean first = true;
+        for (Map<String, Object> build : builds) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            String jobFullName = (String) build.get("job");
+            Job<?, ?> buildJob = Jenkins.get().getItemByFullName(jobFullName, Job.class);
+            writer.write("{\"job\":");
+            writer.write(JSONUtils.quote(jobFullName));
+            writer.write(",\"number\":");
+            writer.write(String.valueOf(build.get("number")));
+            if (buildJob != null) {
+                writer.write(",\"url\":");
+                writer.write(JSONUtils.quote(buildJob.getUrl() + build.get("number") + "/"));
+            }
+            writer.write('}');
+        }
+        writer.write("]}");
+        writer.close();
+    }
+
+}
@@ -0,0 +1,455 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.util.AtomicFileWriter;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONException;
+import net.sf.json.util.JSONTokener;
+import net.sf.json.util.JSONUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores the custom build properties of a run in a separate file next to <code>build.xml</code>.
+ * <p>
+ * The file is a log with one JSON object per line like
+ * <code>{"seq": 7, "key": "k", "value": "42", "valueType": "java.lang.Integer"}</code>. Each change appends its
+ * properties with the next sequence number, so later lines win and the lines of one change share their sequence number.
+ * A removed property is stored as <code>{"seq": 8, "key": "k", "removed": 1}</code>.
+ * Values of types not supported by the remote API are stored as XStream XML with value type <code>xstream</code>.
+ * <p>
+ * Runs with more than <code>compactThreshold</code> (default 1000) superseded lines are compacted every
+ * <code>compactPeriodMillis</code> (default one minute) and on completion: the file is rewritten with the current
+ * properties, all with the latest sequence number.
+ * <p>
+ * If enabled by the system property
+ * <code>org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesSidecar.enabled</code>, the properties of a
+ * run move into the file with their next change and <code>build.xml</code> only keeps a stub. Once moved they stay
+ * there, even after disabling it again.
+ */
+public final class CustomBuildPropertiesSidecar {
+
+    private static final Logger LOGGER = Logger.getLogger(CustomBuildPropertiesSidecar.class.getName());
+
+    static final String FILE_NAME = "custombuildproperties.json";
+
+    static final String VALUE_TYPE_XSTREAM = "xstream";
+
+    /**
+     * Value of a removed property in changes and {@link Batch}es.
+     */
+    static final Object REMOVED = new Object();
+
+    /**
+     * Non-final for testing.
+     */
+    static boolean ENABLED = SystemProperties.getBoolean(CustomBuildPropertiesSidecar.class.getName() + ".enabled", false);
+
+    /**
+     * Number of superseded lines to trigger a compaction. Non-final for testing.
+     */
+    static int COMPACT_THRESHOLD = SystemProperties.getInteger(CustomBuildPropertiesSidecar.class.getName() + ".compactThreshold", 1000);
+
+    /**
+     * Period of the background compaction.
+     */
+    private static final long COMPACT_PERIOD_MILLIS = SystemProperties.getLong(CustomBuildPropertiesSidecar.class.getName() + ".compactPeriodMillis", TimeUnit.MINUTES.toMillis(1));
+
+    /**
+     * Externalizable ids of the runs to compact, so no run is kept in memory until it is compacted.
+     */
+    private static final Set<String> COMPACTION_PENDING = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Properties with the same sequence number, in order of the file.
+     */
+    static final class Batch {
+
+        private final long sequence;
+        private final Map<String, Object> values = new LinkedHashMap<>();
+
+        private Batch(long sequence) {
+            this.sequence = sequence;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        Map<String, Object> getValues() {
+            return values;
+        }
+
+    }
+
+    /**
+     * Properties of a file together with its log state.
+     */
+    static final class Content {
+
+        private final Map<String, Object> properties = new HashMap<>();
+        private long sequence;
+        private int lineCount;
+
+        Map<String, Object> getProperties() {
+            return properties;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        int getLineCount() {
+            return lineCount;
+        }
+
+    }
+
+    private CustomBuildPropertiesSidecar() {
+        super();
+    }
+
+    static File getFile(Run<?, ?> run) {
+        return new File(run.getRootDir(), FILE_NAME);
+    }
+
+    /**
+     * @return the properties of the file, empty if the file does not exist
+     */
+    static Content load(File file) throws IOException {
+        Content content = new Content();
+        for (Batch batch : readBatches(file)) {
+            for (Map.Entry<String, Object> entry : batch.values.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    content.properties.remove(entry.getKey());
+                } else {
+                    content.properties.put(entry.getKey(), entry.getValue());
+                }
+            }
+            content.sequence = Math.max(content.sequence, batch.sequence);
+            content.lineCount += batch.values.size();
+        }
+        return content;
+    }
+
+    /**
+     * Read the properties of a build without loading the run.
+     *
+     * @return the properties of the sidecar file in the build directory, <code>null</code> if there is none
+     */
+    public static Map<String, Object> readProperties(File buildDir) throws IOException {
+        File file = new File(buildDir, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+        return load(file).getProperties();
+    }
+
+    /**
+     * @return the changes of the file in order, empty if the file does not exist
+     */
+    static List<Batch> readBatches(File file) throws IOException {
+        List<Batch> batches = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            Map<String, Object> properties = new HashMap<>();
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                long sequence;
+                try {
+                    properties.clear();
+                    sequence = readLine(line, properties);
+                } catch (JSONException | IllegalArgumentException e) {
+                    // most likely the last line of an interrupted append
+                    LOGGER.log(Level.WARNING, "Skipping line " + lineNumber + " of " + file, e);
+                    continue;
+                }
+                Batch batch = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+                if (batch == null || batch.sequence != sequence) {
+                    batch = new Batch(sequence);
+                    batches.add(batch);
+                }
+                batch.values.putAll(properties);
+            }
+        } catch (NoSuchFileException e) {
+            LOGGER.log(Level.FINE, "No {0}", file);
+        }
+        return batches;
+    }
+
+    /**
+     * Fire the changes of the file to the listener, one call per sequence number in order.
+     *
+     * @param afterSequence only changes with a greater sequence number are fired, <code>-1</code> for all
+     * @return the sequence number of the last change, <code>afterSequence</code> if there is none
+     */
+    static long replay(File file, long afterSequence, Run<?, ?> run, CustomBuildPropertiesListener listener) throws IOException {
+        long lastSequence = afterSequence;
+        Map<String, Object> replayedProperties = new HashMap<>();
+        for (Batch batch : readBatches(file)) {
+            Map<String, CustomBuildPropertiesListener.Change> changes = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : batch.values.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    Object oldValue = replayedProperties.remove(entry.getKey());
+                    changes.put(entry.getKey(), new CustomBuildPropertiesListener.Change(oldValue, null, true));
+                } else {
+                    Object oldValue = replayedProperties.put(entry.getKey(), entry.getValue());
+                    changes.put(entry.getKey(), new CustomBuildPropertiesListener.Change(oldValue, entry.getValue()));
+                }
+            }
+            if (batch.sequence > afterSequence) {
+                listener.onCustomBuildPropertiesChanged(run, Collections.unmodifiableMap(changes));
+            }
+            lastSequence = Math.max(lastSequence, batch.sequence);
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Replace the file by all given properties.
+     */
+    static void write(File file, Map<String, ?> properties, long sequence) throws IOException {
+        AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            writeLines(writer, properties, sequence);
+            writer.commit();
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * Append the given changed properties to the file. A partial last line of an interrupted append is terminated
+     * first, so only that line is skipped when reading and not the appended one.
+     */
+    static void append(File file, Map<String, ?> changes, long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            StringBuilder sb = new StringBuilder();
+            if (size > 0) {
+                ByteBuffer lastByte = ByteBuffer.allocate(1);
+                channel.read(lastByte, size - 1);
+                if (lastByte.get(0) != '\n') {
+                    sb.append('\n');
+                }
+            }
+            for (Map.Entry<String, ?> entry : changes.entrySet()) {
+                appendLine(sb, sequence, entry.getKey(), entry.getValue());
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            long position = size;
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        }
+    }
+
+    private static void writeLines(Writer writer, Map<String, ?> properties, long sequence) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, ?> entry : properties.entrySet()) {
+            sb.setLength(0);
+            appendLine(sb, sequence, entry.getKey(), entry.getValue());
+            writer.write(sb.toString());
+        }
+    }
+
+    static void appendLine(StringBuilder sb, long sequence, String key, Object value) {
+        sb.append("{\"seq\":").append(sequence);
+        sb.append(",\"key\":").append(JSONUtils.quote(key));
+        if (value == REMOVED) {
+            sb.append(",\"removed\":1");
+        } else if (value != null) {
+            String valueType = value.getClass().getName();
+            String rawValue;
+            if (value instanceof Date && value.getClass() == Date.class) {
+                rawValue = ((Date) value).toInstant().toString();
+            } else if (CustomBuildPropertiesAction.isSupportedRemoteType(valueType) && !(value instanceof Date)) {
+                rawValue = value.toString();
+            } else {
+                valueType = VALUE_TYPE_XSTREAM;
+                rawValue = Run.XSTREAM2.toXML(value);
+            }
+            sb.append(",\"value\":").append(JSONUtils.quote(rawValue));
+            sb.append(",\"valueType\":").append(JSONUtils.quote(valueType));
+        }
+        sb.append("}\n");
+    }
+
+    /**
+     * Parses the fields of a line as raw strings, because json-lib would turn JSON-like string values into JSON.
+     *
+     * @return the sequence number of the line, <code>0</code> if missing
+     */
+    static long readLine(String line, Map<String, Object> properties) {
+        Map<String, String> fields = new HashMap<>();
+        JSONTokener tokener = new JSONTokener(line);
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("A JSON object must begin with '{'");
+        }
+        char c = tokener.nextClean();
+        while (c != '}') {
+            if (c != '"') {
+                throw tokener.syntaxError("Expected a quoted field name");
+            }
+            String name = tokener.nextString('"');
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a field name");
+            }
+            c = tokener.nextClean();
+            if (c == '"') {
+                fields.put(name, tokener.nextString('"'));
+            } else if (c == 'n' && "ull".equals(tokener.next(3))) {
+                fields.put(name, null);
+            } else if (c >= '0' && c <= '9') {
+                StringBuilder number = new StringBuilder();
+                while (c >= '0' && c <= '9') {
+                    number.append(c);
+                    c = tokener.next();
+                }
+                tokener.back();
+                fields.put(name, number.toString());
+            } else {
+                throw tokener.syntaxError("Expected a quoted value, a number or null");
+            }
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != '}') {
+                throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+        }
+
+        String key = fields.get("key");
+        if (key == null) {
+            throw new IllegalArgumentException("Missing key: " + line);
+        }
+        properties.put(key, fields.containsKey("removed") ? REMOVED : parseValue(fields.get("value"), fields.get("valueType")));
+        String sequence = fields.get("seq");
+        return sequence != null ? Long.parseLong(sequence) : 0L;
+    }
+
+    /**
+     * Compact the file of the run in the background.
+     */
+    static void scheduleCompaction(Run<?, ?> run) {
+        COMPACTION_PENDING.add(run.getExternalizableId());
+    }
+
+    static void compact(Run<?, ?> run) {
+        COMPACTION_PENDING.remove(run.getExternalizableId());
+        final CustomBuildPropertiesAction action = run.getAction(CustomBuildPropertiesAction.class);
+        if (action == null) {
+            return;
+        }
+        try {
+            action.compactSidecar();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to compact custom build properties of " + run, e);
+        }
+    }
+
+    private static Object parseValue(String value, String valueType) {
+        if (value == null) {
+            return null;
+        }
+        if (VALUE_TYPE_XSTREAM.equals(valueType)) {
+            return Run.XSTREAM2.fromXML(value);
+        }
+        return CustomBuildPropertiesAction.parseRemoteValue(value, valueType);
+    }
+
+    @Extension
+    public static final class CompactorImpl extends AsyncPeriodicWork {
+
+        public CompactorImpl() {
+            super("Custom build properties compaction");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return COMPACT_PERIOD_MILLIS;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) {
+            for (String runId : new ArrayList<>(COMPACTION_PENDING)) {
+                final Run<?, ?> run = Run.fromExternalizableId(runId);
+                if (run == null) {
+                    COMPACTION_PENDING.remove(runId);
+                    continue;
+                }
+                compact(run);
+            }
+        }
+
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            compact(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            COMPACTION_PENDING.remove(run.getExternalizableId());
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Condition on the value of a custom build property used by {@link WaitForCustomBuildPropertiesStep}.
+ */
+public final class CustomBuildPropertyCondition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        /**
+         * Value equals the operand; numbers are compared by value, char sequences by their string.
+         */
+        EQUALS,
+        /**
+         * String of value matches the regex operand.
+         */
+        MATCHES,
+        /**
+         * Value is a number greater than the operand.
+         */
+        GREATER_THAN
+    }
+
+    private final String key;
+    private final Type type;
+    private final Serializable operand;
+
+    private transient Pattern pattern;
+
+    public CustomBuildPropertyCondition(String key, Type type, Object operand) {
+        super();
+
+        this.key = key;
+        this.type = type;
+        switch (type) {
+            case EQUALS:
+                if (operand instanceof CharSequence) {
+                    this.operand = operand.toString();
+                } else if (operand == null || operand instanceof Serializable) {
+                    this.operand = (Serializable) operand;
+                } else {
+                    throw new IllegalArgumentException("Not serializable for " + key + ": " + operand);
+                }
+                break;
+            case MATCHES:
+                this.operand = String.valueOf(operand);
+                this.pattern = PatternCache.compile((String) this.operand);
+                break;
+            case GREATER_THAN:
+                this.operand = toBigDecimal(operand);
+                if (this.operand == null) {
+                    throw new IllegalArgumentException("Not a number for " + key + ": " + operand);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getOperand() {
+        return operand;
+    }
+
+    public boolean test(CustomBuildPropertiesAction action) {
+        if (!action.containsProperty(key)) {
+            return false;
+        }
+        return testValue(action.getProperty(key));
+    }
+
+    boolean testValue(Object value) {
+        switch (type) {
+            case EQUALS:
+                return valueEquals(value);
+            case MATCHES:
+                if (pattern == null) {
+                    pattern = PatternCache.compile((String) operand);
+                }
+                return value != null && pattern.matcher(value.toString()).matches();
+            case GREATER_THAN:
+                BigDecimal number = toBigDecimal(value);
+                return number != null && number.compareTo((BigDecimal) operand) > 0;
+            default:
+                return false;
+        }
+    }
+
+    private boolean valueEquals(Object value) {
+        if (value instanceof CharSequence && operand instanceof String) {
+            return operand.equals(value.toString());
+        }
+        if (value instanceof Number && operand instanceof Number) {
+            BigDecimal number = toBigDecimal(value);
+            BigDecimal expected = toBigDecimal(operand);
+            return number != null && expected != null && number.compareTo(expected) == 0;
+        }
+        return Objects.equals(value, operand);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Number || value instanceof CharSequence) {
+            try {
+                return new BigDecimal(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return key + " " + type + " " + operand;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.custombuildproperties.index.CustomBuildPropertiesValueIndex;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Find builds of all jobs by custom build property value using {@link CustomBuildPropertiesValueIndex}.
+ */
+public final class FindBuildsByCustomBuildPropertyStep extends Step {
+
+    /**
+     * @param jobFullName only builds of this job or <code>null</code> for all jobs
+     * @param limit       maximum number of builds, all if not positive
+     * @return job full name and number of the builds readable by the current user, sorted by job and descending number
+     */
+    static List<Map<String, Object>> find(String key, Object value, String jobFullName, int limit) {
+        return find(CustomBuildPropertiesValueIndex.get().findRunIds(key, value), jobFullName, limit,
+                runJobFullName -> Jenkins.get().getItemByFullName(runJobFullName, Job.class) != null);
+    }
+
+    /**
+     * @param runIds      externalizable ids of the found runs, sorted by job and descending number
+     * @param readableJob whether the job of the given full name is readable by the current user
+     */
+    static List<Map<String, Object>> find(List<String> runIds, String jobFullName, int limit, Predicate<String> readableJob) {
+        final List<Map<String, Object>> builds = new ArrayList<>();
+        final Map<String, Boolean> readableJobs = new HashMap<>();
+        for (String runId : runIds) {
+            if (limit > 0 && builds.size() >= limit) {
+                break;
+            }
+            final int separator = runId.lastIndexOf('#');
+            final String runJobFullName = runId.substring(0, separator);
+            if (jobFullName != null && !jobFullName.equals(runJobFullName)) {
+                continue;
+            }
+            final boolean readable = readableJobs.computeIfAbsent(runJobFullName, readableJob::test);
+            if (readable) {
+                final Map<String, Object> build = new LinkedHashMap<>();
+                build.put("job", runJobFullName);
+                build.put("number", Integer.parseInt(runId.substring(separator + 1)));
+                builds.add(build);
+            }
+        }
+        return builds;
+    }
+
+    private final String key;
+    private final Object value;
+    private String job;
+    private int limit;
+
+    @DataBoundConstructor
+    public FindBuildsByCustomBuildPropertyStep(String key, Object value) {
+        super();
+
+        this.key = key;
+        this.value = value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * Only find builds of this job, relative to the job of the current build.
+     */
+    @DataBoundSetter
+    public void setJob(String job) {
+        this.job = Util.fixEmptyAndTrim(job);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Maximum number of builds; <code>0</code> for no limit.
+     */
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public StepExecution start(final StepContext context) throws Exception {
+        return new Execution(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Find builds by custom build property value";
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "findBuildsByCustomBuildProperty";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return new HashSet<>(Arrays.asList(Run.class, TaskListener.class));
+        }
+
+    }
+
+    public static final class Execution extends SynchronousStepExecution<List<Map<String, Object>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        private final Serializable value;
+        private final String job;
+        private final int limit;
+
+        public Execution(FindBuildsByCustomBuildPropertyStep step, StepContext context) {
+            super(context);
+
+            this.key = step.getKey();
+            this.value = step.getValue() instanceof CharSequence ? step.getValue().toString() : (Serializable) step.getValue();
+            this.job = step.getJob();
+            this.limit = step.getLimit();
+        }
+
+        @Override
+        protected List<Map<String, Object>> run() throws Exception {
+            if (!CustomBuildPropertiesValueIndex.get().isIndexed(key)) {
+                throw new AbortException("Key is not indexed: " + key + ", see system property "
+                        + CustomBuildPropertiesValueIndex.class.getName() + ".includeKeys");
+            }
+            CustomBuildPropertiesValueIndex index = CustomBuildPropertiesValueIndex.get();
+            String jobFullName = null;
+            if (job != null) {
+                Run<?, ?> run = getContext().get(Run.class);
+                Job<?, ?> targetJob = Jenkins.get().getItem(job, run.getParent(), Job.class);
+                if (targetJob == null) {
+                    throw new AbortException("No such job: " + job);
+                }
+                jobFullName = targetJob.getFullName();
+                if (!index.scanLatest(targetJob)) {
+                    getContext().get(TaskListener.class).getLogger().println("Only the latest builds of " + jobFullName
+                            + " were searched, the job is indexed in the background");
+                }
+            } else if (!index.isComplete()) {
+                throw new AbortException("The index of custom build property values is rebuilt after startup, "
+                        + "retry later or pass job");
+            }
+            return find(key, value, jobFullName, limit);
+        }
+
+    }
+
+}
@@ -26,16 +26,27 @@
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Result;
 import hudson.model.Run;
+import org.jenkinsci.plugins.custombuildproperties.index.CustomBuildPropertiesIndex;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
 import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
 import java.util.logging.Logger;
 
 /**
@@ -45,7 +56,45 @@ public final class GetCustomBuildPropertyStep extends Step {
 
     private static final Logger LOGGER = Logger.getLogger(GetCustomBuildPropertyStep.class.getName());
 
+    /**
+     * Returned by {@link #walk} if no considered build has the key.
+     */
+    static final Object NOT_FOUND = new Object();
+
+    /**
+     * Returned by the lookup of {@link #walk} to stop the search.
+     */
+    static final Object STOP = new Object();
+
+    /**
+     * Look up the key in the previous builds, latest first. The index and the fallback both search this way, so
+     * <code>maxBuilds</code> means the same for both: only builds whose number is at most <code>maxBuilds</code> lower
+     * than the current one are considered, deleted builds count as well.
+     *
+     * @param previous the previous candidate build before the given one, <code>null</code> if there is none
+     * @param lookup   the value of the key in the given build, {@link #NOT_FOUND} to continue with the previous build
+     *                 or {@link #STOP}
+     * @return the found value or {@link #NOT_FOUND}
+     */
+    static <B> Object walk(B current, int maxBuilds, ToIntFunction<B> number, UnaryOperator<B> previous, Function<B, Object> lookup) {
+        final int minBuildNumber = maxBuilds > 0 ? number.applyAsInt(current) - maxBuilds : Integer.MIN_VALUE;
+        for (B build = previous.apply(current); build != null && number.applyAsInt(build) >= minBuildNumber; build = previous.apply(build)) {
+            final Object value = lookup.apply(build);
+            if (value == STOP) {
+                break;
+            }
+            if (value != NOT_FOUND) {
+                return value;
+            }
+        }
+        return NOT_FOUND;
+    }
+
     private final String key;
+    private int maxBuilds;
+    private String since;
+    private String onlyResult;
+    private Object defaultValue;
 
     @DataBoundConstructor
     public GetCustomBuildPropertyStep(String key) {
@@ -58,6 +107,55 @@ public String getKey() {
         return key;
     }
 
+    public int getMaxBuilds() {
+        return maxBuilds;
+    }
+
+    /**
+     * Only consider previous builds whose number is at most this much lower than the current one, deleted builds
+     * count as well; <code>0</code> for no limit.
+     */
+    @DataBoundSetter
+    public void setMaxBuilds(int maxBuilds) {
+        this.maxBuilds = maxBuilds;
+    }
+
+    public String getSince() {
+        return since;
+    }
+
+    /**
+     * Only consider builds started within this ISO-8601 duration (e.g. <code>P7D</code> or <code>PT12H</code>).
+     */
+    @DataBoundSetter
+    public void setSince(String since) {
+        this.since = Util.fixEmptyAndTrim(since);
+    }
+
+    public String getOnlyResult() {
+        return onlyResult;
+    }
+
+    /**
+     * Only consider builds having this result (e.g. <code>SUCCESS</code>).
+     */
+    @DataBoundSetter
+    public void setOnlyResult(String onlyResult) {
+        this.onlyResult = Util.fixEmptyAndTrim(onlyResult);
+    }
+
+    public Object getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Value to return if no considered build has the property.
+     */
+    @DataBoundSetter
+    public void setDefaultValue(Object defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
     @Override
     public StepExecution start(final StepContext context) throws Exception {
         return new Execution(this, context);
@@ -89,30 +187,72 @@ public static final class Execution extends SynchronousStepExecution<Object> {
         private static final long serialVersionUID = 1L;
 
         private final String key;
+        private final int maxBuilds;
+        private final Duration since;
+        private final Result onlyResult;
+        private final Object defaultValue;
 
         public Execution(GetCustomBuildPropertyStep step, StepContext context) {
             super(context);
 
             this.key = step.getKey();
+            this.maxBuilds = step.getMaxBuilds();
+            this.since = step.getSince() != null ? Duration.parse(step.getSince()) : null;
+            this.onlyResult = step.getOnlyResult() != null ? parseResult(step.getOnlyResult()) : null;
+            this.defaultValue = step.getDefaultValue();
+        }
+
+        private static Result parseResult(String result) {
+            Result parsed = Result.fromString(result);
+            if (!parsed.toString().equalsIgnoreCase(result)) {
+                throw new IllegalArgumentException("Unsupported onlyResult: " + result);
+            }
+            return parsed;
         }
 
         @Override
         protected Object run() throws Exception {
-            Run run = getContext().get(Run.class);
+            final Run run = getContext().get(Run.class);
+            final long sinceMillis = since != null ? System.currentTimeMillis() - since.toMillis() : Long.MIN_VALUE;
 
-            while (true) {
-                run = run.getPreviousBuild();
-                if (run == null) {
-                    return null;
-                }
+            final Job job = run.getParent();
+            final IntUnaryOperator previousBuildNumbers = CustomBuildPropertiesIndex.get().getPreviousBuildNumbers(job, key);
+            Object value;
+            if (previousBuildNumbers != null) {
+                // only the builds known to have set the key are examined
+                value = walk(run.getNumber(), maxBuilds, Integer::intValue, buildNumber -> {
+                    int previousBuildNumber = previousBuildNumbers.applyAsInt(buildNumber);
+                    return previousBuildNumber > 0 ? previousBuildNumber : null;
+                }, buildNumber -> {
+                    final Run previousRun = job.getBuildByNumber(buildNumber);
+                    return previousRun != null ? lookup(previousRun, sinceMillis) : NOT_FOUND;
+                });
+            } else {
+                // the index is not built yet
+                value = walk(run, maxBuilds, Run::getNumber, Run::getPreviousBuild, previousRun -> lookup(previousRun, sinceMillis));
+            }
+            return value != NOT_FOUND ? value : defaultValue;
+        }
 
-                final CustomBuildPropertiesAction action = run.getAction(CustomBuildPropertiesAction.class);
-                if (action != null) {
-                    if (action.containsProperty(key)) {
-                        return action.getProperty(key);
-                    }
+        /**
+         * @return the value of the key in the run, {@link #NOT_FOUND} if it is not considered or does not have the
+         * key, {@link #STOP} if it started before <code>since</code>
+         */
+        private Object lookup(Run run, long sinceMillis) {
+            if (run.getTimeInMillis() < sinceMillis) {
+                return STOP;
+            }
+            if (onlyResult != null && onlyResult != run.getResult()) {
+                return NOT_FOUND;
+            }
+            final CustomBuildPropertiesAction action = run.getAction(CustomBuildPropertiesAction.class);
+            if (action != null) {
+                final Map<String, Object> properties = action.getProperties();
+                if (properties.containsKey(key)) {
+                    return properties.get(key);
                 }
             }
+            return NOT_FOUND;
         }
 
     }
@@ -0,0 +1,310 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.tasks.junit.CaseResult;
+import hudson.tasks.junit.ClassResult;
+import hudson.tasks.junit.PackageResult;
+import hudson.tasks.junit.TestResult;
+import hudson.tasks.junit.TestResultAction;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Counts junit test results for multiple buckets of test classes in a single pass over the test classes.
+ */
+final class JUnitCounter {
+
+    private JUnitCounter() {
+        super();
+    }
+
+    /**
+     * Test classes selected by include and exclude regex.
+     */
+    static final class Bucket implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String keyPrefix;
+        private final Pattern includePattern;
+        private final Pattern excludePattern;
+        private final boolean extendedMetrics;
+        private final int slowestClasses;
+
+        Bucket(String keyPrefix, String include, String exclude) {
+            this(keyPrefix, include, exclude, false, 0);
+        }
+
+        Bucket(String keyPrefix, String include, String exclude, boolean extendedMetrics, int slowestClasses) {
+            this.keyPrefix = keyPrefix;
+            this.includePattern = include != null && include.trim().length() > 0 ? PatternCache.compile(include) : null;
+            this.excludePattern = exclude != null && exclude.trim().length() > 0 ? PatternCache.compile(exclude) : null;
+            this.extendedMetrics = extendedMetrics;
+            this.slowestClasses = Math.max(0, slowestClasses);
+        }
+
+        String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        boolean isExtendedMetrics() {
+            return extendedMetrics;
+        }
+
+        int getSlowestClasses() {
+            return slowestClasses;
+        }
+
+        boolean matches(String className) {
+            if (includePattern != null && !includePattern.matcher(className).matches()) {
+                return false;
+            }
+            return excludePattern == null || !excludePattern.matcher(className).matches();
+        }
+
+    }
+
+    /**
+     * Mutable result of a single bucket.
+     */
+    private static final class Counts {
+
+        private int passedCount;
+        private int failedCount;
+        private int failedAge;
+        private int skippedCount;
+        private double duration;
+        private double maxDuration;
+        private final PriorityQueue<ClassDuration> slowestClasses;
+        private final int slowestClassesLimit;
+
+        private Counts(Bucket bucket) {
+            this.slowestClassesLimit = bucket.getSlowestClasses();
+            this.slowestClasses = slowestClassesLimit > 0 ? new PriorityQueue<>(ClassDuration.ORDER) : null;
+        }
+
+        private void offerSlowestClass(ClassDuration classDuration) {
+            if (slowestClasses == null) {
+                return;
+            }
+            if (slowestClasses.size() < slowestClassesLimit) {
+                slowestClasses.add(classDuration);
+            } else if (ClassDuration.ORDER.compare(classDuration, slowestClasses.peek()) > 0) {
+                slowestClasses.poll();
+                slowestClasses.add(classDuration);
+            }
+        }
+
+    }
+
+    private static final class ClassDuration {
+
+        /**
+         * Faster first, so the head of a bounded queue is the one to drop; ties are resolved by name to be deterministic.
+         */
+        private static final Comparator<ClassDuration> ORDER = Comparator
+                .comparingDouble((ClassDuration classDuration) -> classDuration.duration)
+                .thenComparing(classDuration -> classDuration.className, Comparator.reverseOrder());
+
+        private final String className;
+        private final double duration;
+
+        private ClassDuration(String className, double duration) {
+            this.className = className;
+            this.duration = duration;
+        }
+
+    }
+
+    /**
+     * @return the custom build properties for all buckets
+     */
+    static Map<String, Object> count(TestResultAction testResultAction, List<Bucket> buckets) {
+        return count(testResultAction != null ? testResultAction.getResult() : null, buckets);
+    }
+
+    /**
+     * @param testResult <code>null</code> if there are no test results
+     * @return the custom build properties for all buckets
+     */
+    static Map<String, Object> count(TestResult testResult, List<Bucket> buckets) {
+        List<Counts> counts = testResult != null ? countClasses(testResult, buckets) : createCounts(buckets);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            putValues(values, buckets.get(i), counts.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * @return prefixes of the rows of the slowest classes tables, rows not written again are stale
+     */
+    static List<String> getReplacedKeyPrefixes(List<Bucket> buckets) {
+        List<String> keyPrefixes = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            if (bucket.getSlowestClasses() > 0) {
+                keyPrefixes.add(getSlowestClassRowPrefix(bucket));
+            }
+        }
+        return keyPrefixes;
+    }
+
+    private static String getSlowestClassRowPrefix(Bucket bucket) {
+        return bucket.getKeyPrefix() + SetJUnitCountStep.CBP_SUFFIX_SLOWEST_CLASS + "_";
+    }
+
+    private static void putValues(Map<String, Object> values, Bucket bucket, Counts counts) {
+        String keyPrefix = bucket.getKeyPrefix();
+        values.put(keyPrefix + SetJUnitCountStep.CBP_SUFFIX_PASSED_COUNT, counts.passedCount);
+        values.put(keyPrefix + SetJUnitCountStep.CBP_SUFFIX_FAILED_COUNT, counts.failedCount);
+        values.put(keyPrefix + SetJUnitCountStep.CBP_SUFFIX_FAILED_AGE, counts.failedAge);
+
+        if (bucket.isExtendedMetrics()) {
+            values.put(keyPrefix + SetJUnitCountStep.CBP_SUFFIX_SKIPPED_COUNT, counts.skippedCount);
+            values.put(keyPrefix + SetJUnitCountStep.CBP_SUFFIX_DURATION, roundSeconds(counts.duration));
+            values.put(keyPrefix + SetJUnitCountStep.CBP_SUFFIX_MAX_DURATION, roundSeconds(counts.maxDuration));
+        }
+
+        if (counts.slowestClasses != null) {
+            List<ClassDuration> slowest = new ArrayList<>(counts.slowestClasses);
+            slowest.sort(ClassDuration.ORDER.reversed());
+            String rowPrefix = getSlowestClassRowPrefix(bucket);
+            String rowFormat = "%0" + Math.max(2, String.valueOf(bucket.getSlowestClasses()).length()) + "d";
+            values.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + keyPrefix + SetJUnitCountStep.CBP_SUFFIX_SLOWEST_CLASSES,
+                    Pattern.quote(rowPrefix) + "(\\d+)_(Class|Duration)");
+            for (int i = 0; i < slowest.size(); i++) {
+                String row = rowPrefix + String.format(rowFormat, i + 1) + "_";
+                values.put(row + "Class", slowest.get(i).className);
+                values.put(row + "Duration", roundSeconds(slowest.get(i).duration));
+            }
+        }
+    }
+
+    /**
+     * Durations are summed up from floats, so round to milliseconds.
+     */
+    private static double roundSeconds(double seconds) {
+        return Math.round(seconds * 1000d) / 1000d;
+    }
+
+    private static List<Counts> createCounts(List<Bucket> buckets) {
+        List<Counts> counts = new ArrayList<>(buckets.size());
+        for (Bucket bucket : buckets) {
+            counts.add(new Counts(bucket));
+        }
+        return counts;
+    }
+
+    /**
+     * Walks the classes of the test result, so include and exclude are evaluated once per class and the passed test
+     * cases are not materialized.
+     * <p>
+     * The classes are walked sequentially by the calling thread: the age of failed cases loads the results of previous
+     * builds lazily, which must not happen on threads of the common pool.
+     */
+    private static List<Counts> countClasses(TestResult testResult, List<Bucket> buckets) {
+        List<Counts> counts = createCounts(buckets);
+        for (PackageResult packageResult : testResult.getChildren()) {
+            for (ClassResult classResult : packageResult.getChildren()) {
+                accumulate(counts, classResult, buckets);
+            }
+        }
+        return counts;
+    }
+
+    private static void accumulate(List<Counts> counts, ClassResult classResult, List<Bucket> buckets) {
+        if (classResult == null) {
+            return;
+        }
+
+        final List<CaseResult> caseResults = classResult.getChildren();
+        if (caseResults.isEmpty()) {
+            return;
+        }
+
+        // the class name of the cases is fully qualified in contrast to the name of the class result
+        final String className = caseResults.get(0).getClassName();
+        if (className == null) {
+            return;
+        }
+
+        int failedAge = -1;
+        double maxDuration = -1;
+        for (int i = 0; i < buckets.size(); i++) {
+            final Bucket bucket = buckets.get(i);
+            if (!bucket.matches(className)) {
+                continue;
+            }
+            final Counts bucketCounts = counts.get(i);
+            bucketCounts.passedCount += classResult.getPassCount();
+            bucketCounts.failedCount += classResult.getFailCount();
+            if (classResult.getFailCount() > 0) {
+                if (failedAge < 0) {
+                    failedAge = getFailedAge(caseResults);
+                }
+                bucketCounts.failedAge = Math.max(bucketCounts.failedAge, failedAge);
+            }
+            if (bucket.isExtendedMetrics()) {
+                bucketCounts.skippedCount += classResult.getSkipCount();
+                bucketCounts.duration += classResult.getDuration();
+                if (maxDuration < 0) {
+                    maxDuration = getMaxDuration(caseResults);
+                }
+                bucketCounts.maxDuration = Math.max(bucketCounts.maxDuration, maxDuration);
+            }
+            bucketCounts.offerSlowestClass(new ClassDuration(className, classResult.getDuration()));
+        }
+    }
+
+    private static int getFailedAge(List<CaseResult> caseResults) {
+        int age = 0;
+        for (CaseResult caseResult : caseResults) {
+            if (caseResult != null && caseResult.isFailed()) {
+                age = Math.max(age, caseResult.getAge());
+            }
+        }
+        return age;
+    }
+
+    private static double getMaxDuration(List<CaseResult> caseResults) {
+        double maxDuration = 0;
+        for (CaseResult caseResult : caseResults) {
+            if (caseResult != null) {
+                maxDuration = Math.max(maxDuration, caseResult.getDuration());
+            }
+        }
+        return maxDuration;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import jenkins.util.SystemProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Size-bounded LRU cache of compiled regular expressions, keyed by the pattern string.
+ * <p>
+ * Used for the user supplied patterns of steps and table definitions, which are otherwise compiled on every run or
+ * page render. The size is set by the system property
+ * <code>org.jenkinsci.plugins.custombuildproperties.PatternCache.maxSize</code> (default 256), the hit and miss
+ * counters help to size it.
+ */
+public final class PatternCache {
+
+    /**
+     * Maximum number of cached patterns. Non-final for testing.
+     */
+    static int MAX_SIZE = SystemProperties.getInteger(PatternCache.class.getName() + ".maxSize", 256);
+
+    private static final Map<String, Pattern> CACHE = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return size() > MAX_SIZE;
+        }
+
+    };
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private PatternCache() {
+        super();
+    }
+
+    /**
+     * @return the cached or newly compiled pattern
+     * @throws PatternSyntaxException if the regex is invalid; invalid regexes are not cached
+     */
+    public static Pattern compile(String regex) {
+        synchronized (CACHE) {
+            Pattern pattern = CACHE.get(regex);
+            if (pattern != null) {
+                HIT_COUNT.incrementAndGet();
+                return pattern;
+            }
+        }
+
+        MISS_COUNT.incrementAndGet();
+        // compile outside the lock, concurrent misses for the same regex are harmless
+        Pattern pattern = Pattern.compile(regex);
+        if (MAX_SIZE > 0) {
+            synchronized (CACHE) {
+                CACHE.put(regex, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    public static int getSize() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    public static int getMaxSize() {
+        return MAX_SIZE;
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.get();
+    }
+
+    /**
+     * For testing.
+     */
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+        HIT_COUNT.set(0);
+        MISS_COUNT.set(0);
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strict parser for the JSON documents posted to the remote API.
+ * <p>
+ * Unlike json-lib, string values are kept exactly as sent, e.g. <code>"[1]"</code> or <code>"null"</code>, and
+ * malformed documents are rejected instead of being repaired. Objects are parsed to maps, arrays to lists, numbers to
+ * their literal text and <code>null</code> to <code>null</code>.
+ */
+final class RemoteJsonParser {
+
+    private static final Pattern NUMBER = Pattern.compile("-?(?:0|[1-9][0-9]*)(?:\\.[0-9]+)?(?:[eE][+-]?[0-9]+)?");
+
+    private final String json;
+    private int position;
+
+    private RemoteJsonParser(String json) {
+        this.json = json;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the document is not a single JSON object
+     */
+    static Map<String, Object> parseObject(String json) {
+        RemoteJsonParser parser = new RemoteJsonParser(json);
+        parser.skipWhitespace();
+        if (parser.peek() != '{') {
+            throw parser.syntaxError("Expected a JSON object");
+        }
+        Map<String, Object> result = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.position < json.length()) {
+            throw parser.syntaxError("Unexpected content after the JSON object");
+        }
+        return result;
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        char c = peek();
+        if (c == '{') {
+            return readObject();
+        }
+        if (c == '[') {
+            return readArray();
+        }
+        if (c == '"') {
+            return readString();
+        }
+        if (json.startsWith("true", position)) {
+            position += 4;
+            return Boolean.TRUE;
+        }
+        if (json.startsWith("false", position)) {
+            position += 5;
+            return Boolean.FALSE;
+        }
+        if (json.startsWith("null", position)) {
+            position += 4;
+            return null;
+        }
+        Matcher matcher = NUMBER.matcher(json).region(position, json.length());
+        if (matcher.lookingAt()) {
+            position = matcher.end();
+            return matcher.group();
+        }
+        throw syntaxError("Expected a value");
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return result;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw syntaxError("Expected a quoted field name");
+            }
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            if (result.containsKey(name)) {
+                throw syntaxError("Duplicate field " + name);
+            }
+            result.put(name, readValue());
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return result;
+            }
+            expect(',');
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> result = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return result;
+        }
+        while (true) {
+            result.add(readValue());
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                return result;
+            }
+            expect(',');
+        }
+    }
+
+    private String readString() {
+        StringBuilder sb = new StringBuilder();
+        position++;
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c < ' ') {
+                throw syntaxError("Unescaped control character in string");
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            c = next();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(c);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    int codeUnit = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw syntaxError("Invalid unicode escape");
+                        }
+                        codeUnit = codeUnit * 16 + digit;
+                    }
+                    sb.append((char) codeUnit);
+                    break;
+                default:
+                    throw syntaxError("Invalid escape");
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length()) {
+            char c = json.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= json.length()) {
+            throw syntaxError("Unexpected end of document");
+        }
+        return json.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            position--;
+            throw syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException syntaxError(String message) {
+        return new IllegalArgumentException(message + " at character " + position);
+    }
+
+}
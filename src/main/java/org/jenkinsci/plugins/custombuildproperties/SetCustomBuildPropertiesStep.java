@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Set many custom build properties with a single save of the build.
+ */
+public final class SetCustomBuildPropertiesStep extends Step {
+
+    private static final Logger LOGGER = Logger.getLogger(SetCustomBuildPropertiesStep.class.getName());
+
+    protected static void runLogic(Map<String, ?> values, boolean onlySetIfAbsent, Run<?, ?> run) throws Exception {
+        runLogic(values, Collections.emptyList(), onlySetIfAbsent, run);
+    }
+
+    /**
+     * @param replacedKeyPrefixes existing properties with keys starting with one of these prefixes are removed unless
+     *                            they are set again, e.g. rows of a table which has fewer rows now
+     */
+    static void runLogic(Map<String, ?> values, Collection<String> replacedKeyPrefixes, boolean onlySetIfAbsent, Run<?, ?> run) throws Exception {
+        final Runnable fireChanged;
+        synchronized (run) {
+            fireChanged = setPropertiesLocked(values, replacedKeyPrefixes, onlySetIfAbsent, run);
+        }
+        fireChanged.run();
+    }
+
+    /**
+     * Like {@link #runLogic(Map, Collection, boolean, Run)} for callers holding the lock of the run.
+     *
+     * @return notifies the listeners, to be run after releasing the lock of the run
+     */
+    static Runnable setPropertiesLocked(Map<String, ?> values, Collection<String> replacedKeyPrefixes, boolean onlySetIfAbsent, Run<?, ?> run) throws Exception {
+        final CustomBuildPropertiesAction action = CustomBuildPropertiesAction.getOrCreate(run);
+        final Map<String, Object> oldValues = new LinkedHashMap<>();
+        if (!onlySetIfAbsent) {
+            oldValues.putAll(action.removePropertiesInternal(replacedKeyPrefixes, values.keySet()));
+        }
+        oldValues.putAll(action.setPropertiesInternal(values, onlySetIfAbsent, false));
+
+        CustomBuildPropertiesPersistence.save(run);
+        return () -> action.fireChanged(oldValues, values);
+    }
+
+    static Map<String, Object> toPropertiesMap(Object map) {
+        if (!(map instanceof Map)) {
+            throw new IllegalArgumentException("map must be a Map but was: " + (map == null ? null : map.getClass().getName()));
+        }
+        final Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) map).entrySet()) {
+            if (entry.getKey() == null) {
+                throw new IllegalArgumentException("map must not contain null keys");
+            }
+            result.put(entry.getKey().toString(), entry.getValue());
+        }
+        return result;
+    }
+
+    private final Object map;
+    private boolean onlySetIfAbsent;
+
+    @DataBoundConstructor
+    public SetCustomBuildPropertiesStep(Object map) {
+        super();
+
+        this.map = map;
+    }
+
+    public Object getMap() {
+        return map;
+    }
+
+    public boolean isOnlySetIfAbsent() {
+        return onlySetIfAbsent;
+    }
+
+    @DataBoundSetter
+    public void setOnlySetIfAbsent(final boolean onlySetIfAbsent) {
+        this.onlySetIfAbsent = onlySetIfAbsent;
+    }
+
+    @Override
+    public StepExecution start(final StepContext context) throws Exception {
+        return new Execution(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Set multiple custom build properties";
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "setCustomBuildProperties";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(Run.class);
+        }
+
+    }
+
+    public static final class Execution extends SynchronousStepExecution<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, Object> values;
+        private final boolean onlySetIfAbsent;
+
+        public Execution(SetCustomBuildPropertiesStep step, StepContext context) {
+            super(context);
+
+            this.values = toPropertiesMap(step.getMap());
+            this.onlySetIfAbsent = step.isOnlySetIfAbsent();
+        }
+
+        @Override
+        protected Void run() throws Exception {
+            final Run run = getContext().get(Run.class);
+
+            runLogic(values, onlySetIfAbsent, run);
+
+            return null;
+        }
+
+    }
+
+}
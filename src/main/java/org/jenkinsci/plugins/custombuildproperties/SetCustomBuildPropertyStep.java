@@ -47,24 +47,8 @@ public final class SetCustomBuildPropertyStep extends Step {
     private static final Logger LOGGER = Logger.getLogger(SetCustomBuildPropertyStep.class.getName());
 
     protected static void runLogic(String key, Object value, boolean onlySetIfAbsent, Run<?, ?> run) throws Exception {
-        synchronized (run) {
-            final CustomBuildPropertiesAction action;
-            final CustomBuildPropertiesAction actionMayBeNull = run.getAction(CustomBuildPropertiesAction.class);
-            if (actionMayBeNull != null) {
-                action = actionMayBeNull;
-            } else {
-                action = new CustomBuildPropertiesAction();
-                run.addAction(action);
-            }
-
-            if (onlySetIfAbsent) {
-                action.setPropertyIfAbsent(key, value);
-            } else {
-                action.setProperty(key, value);
-            }
-
-            run.save();
-        }
+        // listeners are notified after the lock of the run is released
+        SetCustomBuildPropertiesStep.runLogic(Collections.singletonMap(key, value), onlySetIfAbsent, run);
     }
 
     private final String key;
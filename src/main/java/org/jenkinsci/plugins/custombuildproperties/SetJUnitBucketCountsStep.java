@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.tasks.junit.TestResultAction;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Like {@link SetJUnitCountStep} but for multiple key prefixes, counted in a single pass over the test results.
+ */
+public final class SetJUnitBucketCountsStep extends Step {
+
+    private static final Logger LOGGER = Logger.getLogger(SetJUnitBucketCountsStep.class.getName());
+
+    static List<JUnitCounter.Bucket> toBuckets(Object buckets, boolean extendedMetrics, int slowestClasses) {
+        final List<JUnitCounter.Bucket> result = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : SetCustomBuildPropertiesStep.toPropertiesMap(buckets).entrySet()) {
+            final Object filter = entry.getValue();
+            String include = null;
+            String exclude = null;
+            if (filter instanceof Map) {
+                final Map<String, Object> filterMap = SetCustomBuildPropertiesStep.toPropertiesMap(filter);
+                include = filterMap.get("include") != null ? filterMap.get("include").toString() : null;
+                exclude = filterMap.get("exclude") != null ? filterMap.get("exclude").toString() : null;
+            } else if (filter != null) {
+                throw new IllegalArgumentException("Bucket " + entry.getKey() + " must be a Map with include and exclude but was: " + filter);
+            }
+            result.add(new JUnitCounter.Bucket(entry.getKey(), include, exclude, extendedMetrics, slowestClasses));
+        }
+        return result;
+    }
+
+    private final Object buckets;
+    private boolean onlySetIfAbsent;
+    private boolean extendedMetrics;
+    private int slowestClasses;
+
+    @DataBoundConstructor
+    public SetJUnitBucketCountsStep(Object buckets) {
+        super();
+
+        this.buckets = buckets;
+    }
+
+    public Object getBuckets() {
+        return buckets;
+    }
+
+    public boolean isOnlySetIfAbsent() {
+        return onlySetIfAbsent;
+    }
+
+    @DataBoundSetter
+    public void setOnlySetIfAbsent(final boolean onlySetIfAbsent) {
+        this.onlySetIfAbsent = onlySetIfAbsent;
+    }
+
+    public boolean isExtendedMetrics() {
+        return extendedMetrics;
+    }
+
+    @DataBoundSetter
+    public void setExtendedMetrics(final boolean extendedMetrics) {
+        this.extendedMetrics = extendedMetrics;
+    }
+
+    public int getSlowestClasses() {
+        return slowestClasses;
+    }
+
+    @DataBoundSetter
+    public void setSlowestClasses(final int slowestClasses) {
+        this.slowestClasses = slowestClasses;
+    }
+
+    @Override
+    public StepExecution start(final StepContext context) throws Exception {
+        return new Execution(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Set junit test result counts of multiple buckets as custom build properties";
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "setJUnitBucketCounts";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(Run.class);
+        }
+
+    }
+
+    public static final class Execution extends SynchronousStepExecution<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<JUnitCounter.Bucket> buckets;
+        private final boolean onlySetIfAbsent;
+
+        public Execution(final SetJUnitBucketCountsStep step, final StepContext context) {
+            super(context);
+
+            this.buckets = toBuckets(step.getBuckets(), step.isExtendedMetrics(), step.getSlowestClasses());
+            this.onlySetIfAbsent = step.isOnlySetIfAbsent();
+        }
+
+        @Override
+        protected Void run() throws Exception {
+            final Run run = getContext().get(Run.class);
+
+            final Runnable fireChanged;
+            synchronized (run) {
+                final TestResultAction testResultAction = run.getAction(TestResultAction.class);
+                final Map<String, Object> values = JUnitCounter.count(testResultAction, buckets);
+                fireChanged = SetCustomBuildPropertiesStep.setPropertiesLocked(values, JUnitCounter.getReplacedKeyPrefixes(buckets), onlySetIfAbsent, run);
+            }
+            // listeners are notified after the lock of the run is released
+            fireChanged.run();
+
+            return null;
+        }
+
+    }
+
+}
@@ -27,7 +27,6 @@
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Run;
-import hudson.tasks.junit.CaseResult;
 import hudson.tasks.junit.TestResultAction;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
@@ -39,9 +38,9 @@
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
 
 /**
  *
@@ -51,6 +50,11 @@ public final class SetJUnitCountStep extends Step {
     public static final String CBP_SUFFIX_PASSED_COUNT = "PassedCount";
     public static final String CBP_SUFFIX_FAILED_COUNT = "FailedCount";
     public static final String CBP_SUFFIX_FAILED_AGE = "FailedAge";
+    public static final String CBP_SUFFIX_SKIPPED_COUNT = "SkippedCount";
+    public static final String CBP_SUFFIX_DURATION = "Duration";
+    public static final String CBP_SUFFIX_MAX_DURATION = "MaxDuration";
+    public static final String CBP_SUFFIX_SLOWEST_CLASS = "SlowestClass";
+    public static final String CBP_SUFFIX_SLOWEST_CLASSES = "SlowestClasses";
 
     private static final Logger LOGGER = Logger.getLogger(SetJUnitCountStep.class.getName());
 
@@ -58,6 +62,8 @@ public final class SetJUnitCountStep extends Step {
     private final String include;
     private final String exclude;
     private boolean onlySetIfAbsent;
+    private boolean extendedMetrics;
+    private int slowestClasses;
 
     @DataBoundConstructor
     public SetJUnitCountStep(String keyPrefix, String include, String exclude) {
@@ -89,6 +95,24 @@ public void setOnlySetIfAbsent(final boolean onlySetIfAbsent) {
         this.onlySetIfAbsent = onlySetIfAbsent;
     }
 
+    public boolean isExtendedMetrics() {
+        return extendedMetrics;
+    }
+
+    @DataBoundSetter
+    public void setExtendedMetrics(final boolean extendedMetrics) {
+        this.extendedMetrics = extendedMetrics;
+    }
+
+    public int getSlowestClasses() {
+        return slowestClasses;
+    }
+
+    @DataBoundSetter
+    public void setSlowestClasses(final int slowestClasses) {
+        this.slowestClasses = slowestClasses;
+    }
+
     @Override
     public StepExecution start(final StepContext context) throws Exception {
         return new Execution(this, context);
@@ -134,70 +158,24 @@ protected Void run() throws Exception {
             final String include = step.getInclude();
             final String exclude = step.getExclude();
             final boolean onlySetIfAbsent = step.isOnlySetIfAbsent();
+            final boolean extendedMetrics = step.isExtendedMetrics();
+            final int slowestClasses = step.getSlowestClasses();
 
-            final Pattern includePattern = include != null && include.trim().length() > 0 ? Pattern.compile(include) : null;
-            final Pattern excludePattern = exclude != null && exclude.trim().length() > 0 ? Pattern.compile(exclude) : null;
+            final List<JUnitCounter.Bucket> buckets = Collections.singletonList(
+                    new JUnitCounter.Bucket(keyPrefix, include, exclude, extendedMetrics, slowestClasses));
 
+            final Runnable fireChanged;
             synchronized (run) {
-                int[] passed = new int[]{
-                        0,
-                        0
-                };
-                int[] failed = new int[]{
-                        0,
-                        0
-                };
-
                 final TestResultAction testResultAction = run.getAction(TestResultAction.class);
-                if (testResultAction != null) {
-                    passed = count(testResultAction.getPassedTests(), includePattern, excludePattern);
-                    failed = count(testResultAction.getFailedTests(), includePattern, excludePattern);
-                }
-
-                SetCustomBuildPropertyStep.runLogic(keyPrefix + CBP_SUFFIX_PASSED_COUNT, passed[0], onlySetIfAbsent, run);
-                SetCustomBuildPropertyStep.runLogic(keyPrefix + CBP_SUFFIX_FAILED_COUNT, failed[0], onlySetIfAbsent, run);
-                SetCustomBuildPropertyStep.runLogic(keyPrefix + CBP_SUFFIX_FAILED_AGE, failed[1], onlySetIfAbsent, run);
+                final Map<String, Object> values = JUnitCounter.count(testResultAction, buckets);
+                fireChanged = SetCustomBuildPropertiesStep.setPropertiesLocked(values, JUnitCounter.getReplacedKeyPrefixes(buckets), onlySetIfAbsent, run);
             }
-
+            // listeners are notified after the lock of the run is released
+            fireChanged.run();
 
             return null;
         }
 
-        private int[] count(final List<CaseResult> caseResults, final Pattern includePattern, final Pattern excludePattern) {
-            int count = 0;
-            int age = 0;
-
-            if (caseResults != null) {
-                for (CaseResult caseResult : caseResults) {
-                    if (caseResult == null) {
-                        continue;
-                    }
-
-                    final String className = caseResult.getClassName();
-                    if (className == null) {
-                        continue;
-                    }
-
-                    if (includePattern != null && !includePattern.matcher(className).matches()) {
-                        continue;
-                    }
-
-                    if (excludePattern != null && excludePattern.matcher(className).matches()) {
-                        continue;
-                    }
-
-                    age = Math.max(age, caseResult.getAge());
-
-                    count++;
-                }
-            }
-
-            return new int[]{
-                    count,
-                    age
-            };
-        }
-
     }
 
 }
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Sorted keys of an immutable snapshot of properties, for prefix and range queries in <code>O(log n + k)</code>.
+ */
+final class SortedKeys {
+
+    static SortedKeys of(Map<String, Object> properties) {
+        String[] keys;
+        if (properties instanceof CompactPropertiesMap) {
+            keys = ((CompactPropertiesMap) properties).getSortedKeys();
+        } else {
+            keys = properties.keySet().stream().filter(key -> key != null).toArray(String[]::new);
+            Arrays.sort(keys);
+        }
+        return new SortedKeys(properties, keys);
+    }
+
+    private final Map<String, Object> properties;
+    private final String[] keys;
+
+    private SortedKeys(Map<String, Object> properties, String[] keys) {
+        this.properties = properties;
+        this.keys = keys;
+    }
+
+    boolean isFor(Map<String, Object> properties) {
+        return this.properties == properties;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String getKey(int index) {
+        return keys[index];
+    }
+
+    Object getValue(int index) {
+        return properties.get(keys[index]);
+    }
+
+    /**
+     * @return the index of the first key not less than the given key
+     */
+    int lowerBound(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * @return the index after the last key with the prefix, the keys with the prefix start at <code>lowerBound(prefix)</code>
+     */
+    int prefixEnd(String prefix) {
+        int low = lowerBound(prefix);
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the properties with the keys in the index range
+     */
+    SortedMap<String, Object> toMap(int from, int to) {
+        SortedMap<String, Object> result = new TreeMap<>();
+        for (int i = from; i < to; i++) {
+            result.put(keys[i], properties.get(keys[i]));
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dispatches changes of custom build properties to the waiting {@link WaitForCustomBuildPropertiesStep.Execution}s.
+ * <p>
+ * Waiters are held by run and key, so a change only wakes the executions waiting for exactly that property. All
+ * waiters of a run are woken when it completes or is deleted, so they do not wait for properties which will never be
+ * set.
+ */
+@Extension
+public class WaitForCustomBuildPropertiesDispatcher extends CustomBuildPropertiesListener {
+
+    private static final Logger LOGGER = Logger.getLogger(WaitForCustomBuildPropertiesDispatcher.class.getName());
+
+    static WaitForCustomBuildPropertiesDispatcher get() {
+        return ExtensionList.lookupSingleton(WaitForCustomBuildPropertiesDispatcher.class);
+    }
+
+    /**
+     * Waits for properties of a run.
+     */
+    interface Waiter {
+
+        /**
+         * Called if one of the keys changed.
+         */
+        void onCustomBuildPropertyChanged();
+
+        /**
+         * Called if the run completed or was deleted.
+         */
+        void onRunCompleted();
+
+    }
+
+    private final ConcurrentMap<WaiterKey, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    void register(String runId, Collection<String> keys, Waiter waiter) {
+        for (String key : keys) {
+            waiters.compute(new WaiterKey(runId, key), (notUsed, registered) -> {
+                Set<Waiter> result = registered != null ? registered : ConcurrentHashMap.newKeySet();
+                result.add(waiter);
+                return result;
+            });
+        }
+    }
+
+    void unregister(String runId, Collection<String> keys, Waiter waiter) {
+        for (String key : keys) {
+            waiters.computeIfPresent(new WaiterKey(runId, key), (notUsed, registered) -> {
+                registered.remove(waiter);
+                return registered.isEmpty() ? null : registered;
+            });
+        }
+    }
+
+    @Override
+    public void onCustomBuildPropertiesChanged(Run run, Map<String, Change> changes) {
+        if (run == null || waiters.isEmpty()) {
+            return;
+        }
+        dispatchChanged(run.getExternalizableId(), changes.keySet());
+    }
+
+    void dispatchChanged(String runId, Collection<String> keys) {
+        // each waiter checks once per write, even if it waits for several of the changed keys
+        Set<Waiter> affectedWaiters = new LinkedHashSet<>();
+        for (String key : keys) {
+            Set<Waiter> registered = waiters.get(new WaiterKey(runId, key));
+            if (registered != null) {
+                affectedWaiters.addAll(registered);
+            }
+        }
+        LOGGER.log(Level.FINEST, "dispatchChanged - {0} waiters for {1}", new Object[]{affectedWaiters.size(), keys});
+        for (Waiter waiter : affectedWaiters) {
+            waiter.onCustomBuildPropertyChanged();
+        }
+    }
+
+    void dispatchCompleted(String runId) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Set<Waiter> affectedWaiters = new LinkedHashSet<>();
+        waiters.forEach((waiterKey, registered) -> {
+            if (waiterKey.runId.equals(runId)) {
+                affectedWaiters.addAll(registered);
+            }
+        });
+        LOGGER.log(Level.FINEST, "dispatchCompleted - {0} waiters for {1}", new Object[]{affectedWaiters.size(), runId});
+        for (Waiter waiter : affectedWaiters) {
+            waiter.onRunCompleted();
+        }
+    }
+
+    private static final class WaiterKey {
+
+        private final String runId;
+        private final String key;
+
+        private WaiterKey(String runId, String key) {
+            this.runId = runId;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WaiterKey)) {
+                return false;
+            }
+            WaiterKey other = (WaiterKey) o;
+            return runId.equals(other.runId) && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * runId.hashCode() + Objects.hashCode(key);
+        }
+
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            get().dispatchCompleted(run.getExternalizableId());
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            get().dispatchCompleted(run.getExternalizableId());
+        }
+
+    }
+
+}
@@ -25,8 +25,12 @@
 package org.jenkinsci.plugins.custombuildproperties;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
 import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
 import hudson.model.Run;
+import jenkins.model.Jenkins;
 import jenkins.util.Timer;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
@@ -38,6 +42,7 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -54,6 +59,11 @@ public final class WaitForCustomBuildPropertiesStep extends Step {
     private final List<String> keys;
     private final int timeoutTime;
     private TimeUnit timeoutUnit = TimeUnit.MINUTES;
+    private Object valueEquals;
+    private Object valueMatches;
+    private Object valueGreaterThan;
+    private String job;
+    private int build;
 
     @DataBoundConstructor
     public WaitForCustomBuildPropertiesStep(List<String> keys, int timeoutTime) {
@@ -80,6 +90,82 @@ public List<String> getKeys() {
         return keys;
     }
 
+    public Object getValueEquals() {
+        return valueEquals;
+    }
+
+    /**
+     * Map of key to the value the property has to be equal to.
+     */
+    @DataBoundSetter
+    public void setValueEquals(Object valueEquals) {
+        this.valueEquals = valueEquals;
+    }
+
+    public Object getValueMatches() {
+        return valueMatches;
+    }
+
+    /**
+     * Map of key to the regex the property has to match.
+     */
+    @DataBoundSetter
+    public void setValueMatches(Object valueMatches) {
+        this.valueMatches = valueMatches;
+    }
+
+    public Object getValueGreaterThan() {
+        return valueGreaterThan;
+    }
+
+    /**
+     * Map of key to the number the property has to be greater than.
+     */
+    @DataBoundSetter
+    public void setValueGreaterThan(Object valueGreaterThan) {
+        this.valueGreaterThan = valueGreaterThan;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * Name of another job to wait for, relative to the job of the current build or absolute.
+     */
+    @DataBoundSetter
+    public void setJob(String job) {
+        this.job = Util.fixEmptyAndTrim(job);
+    }
+
+    public int getBuild() {
+        return build;
+    }
+
+    /**
+     * Number of the build of the other job to wait for; <code>0</code> for its last build.
+     */
+    @DataBoundSetter
+    public void setBuild(int build) {
+        this.build = build;
+    }
+
+    public List<CustomBuildPropertyCondition> getConditions() {
+        List<CustomBuildPropertyCondition> conditions = new ArrayList<>();
+        addConditions(conditions, valueEquals, CustomBuildPropertyCondition.Type.EQUALS);
+        addConditions(conditions, valueMatches, CustomBuildPropertyCondition.Type.MATCHES);
+        addConditions(conditions, valueGreaterThan, CustomBuildPropertyCondition.Type.GREATER_THAN);
+        return conditions;
+    }
+
+    private static void addConditions(List<CustomBuildPropertyCondition> conditions, Object map, CustomBuildPropertyCondition.Type type) {
+        if (map != null) {
+            for (Map.Entry<String, Object> entry : SetCustomBuildPropertiesStep.toPropertiesMap(map).entrySet()) {
+                conditions.add(new CustomBuildPropertyCondition(entry.getKey(), type, entry.getValue()));
+            }
+        }
+    }
+
     @Override
     public StepExecution start(final StepContext context) throws Exception {
         return new Execution(this, context);
@@ -106,31 +192,83 @@ public Set<? extends Class<?>> getRequiredContext() {
 
     }
 
-    public static final class Execution extends StepExecution {
+    /**
+     * Outcome of checking the properties of the awaited run.
+     */
+    enum Outcome {
+        SATISFIED, WAITING, RUN_FINISHED
+    }
+
+    public static final class Execution extends StepExecution implements WaitForCustomBuildPropertiesDispatcher.Waiter {
 
         private static final long serialVersionUID = 1L;
 
         private List<String> keys;
+        private List<CustomBuildPropertyCondition> conditions;
+        private String job;
+        private int build;
+        /**
+         * Externalizable id of the build of the other job; <code>null</code> for the current build.
+         */
+        private String targetRunId;
         private long timeoutTimeMillis;
+        /**
+         * End of the timeout, so that resuming does not restart the full timeout; <code>0</code> if not yet known.
+         */
+        private long timeoutAtMillis;
 
         private boolean alreadyCompleted;
 
-        private transient volatile CustomBuildPropertiesListener listener;
-        private transient volatile ScheduledFuture<?> checkTask;
+        private transient volatile String runId;
         private transient volatile ScheduledFuture<?> timeoutTask;
 
         public Execution(WaitForCustomBuildPropertiesStep step, StepContext context) {
             super(context);
 
-            this.keys = step.getKeys();
+            this.conditions = step.getConditions();
+            this.keys = new ArrayList<>(step.getKeys());
+            for (CustomBuildPropertyCondition condition : conditions) {
+                if (!keys.contains(condition.getKey())) {
+                    keys.add(condition.getKey());
+                }
+            }
+            this.job = step.getJob();
+            this.build = step.getBuild();
             this.timeoutTimeMillis = step.getTimeoutUnit().toMillis(step.getTimeoutTime());
         }
 
         @Override
-        public boolean start() {
+        public boolean start() throws Exception {
+            if (job != null) {
+                targetRunId = resolveTargetRun().getExternalizableId();
+            }
             return init();
         }
 
+        private Run<?, ?> resolveTargetRun() throws Exception {
+            Run<?, ?> currentRun = getContext().get(Run.class);
+            Job<?, ?> targetJob = Jenkins.get().getItem(job, currentRun.getParent(), Job.class);
+            if (targetJob == null) {
+                throw new AbortException("No such job: " + job);
+            }
+            Run<?, ?> targetRun = build > 0 ? targetJob.getBuildByNumber(build) : targetJob.getLastBuild();
+            if (targetRun == null) {
+                throw new AbortException("No such build of " + targetJob.getFullName() + ": " + (build > 0 ? build : "lastBuild"));
+            }
+            return targetRun;
+        }
+
+        private Run<?, ?> getRelevantRun() throws Exception {
+            if (targetRunId == null) {
+                return getContext().get(Run.class);
+            }
+            Run<?, ?> targetRun = Run.fromExternalizableId(targetRunId);
+            if (targetRun == null) {
+                throw new AbortException("No such build: " + targetRunId);
+            }
+            return targetRun;
+        }
+
         @Override
         public void onResume() {
             init();
@@ -143,10 +281,18 @@ public void stop(@NonNull Throwable cause) {
         }
 
         private boolean init() {
+            synchronized (this) {
+                if (alreadyCompleted) {
+                    return true;
+                }
+                if (timeoutTimeMillis > 0 && timeoutAtMillis == 0) {
+                    timeoutAtMillis = System.currentTimeMillis() + timeoutTimeMillis;
+                }
+            }
+            // register before checking, so that no change in between gets lost - also after resume
+            installChangeEventListener();
             if (!check()) {
                 scheduleTimeout();
-                installChangeEventListener();
-                scheduleCheck();
                 return false;
             }
             return true;
@@ -154,11 +300,12 @@ private boolean init() {
 
         private void scheduleTimeout() {
             if (timeoutTimeMillis > 0) {
+                long delayMillis = Math.max(0, timeoutAtMillis - System.currentTimeMillis());
                 timeoutTask = Timer.get().schedule(new Runnable() {
                     @Override
                     public void run() {
                         LOGGER.log(Level.FINEST, "scheduleTimeout.run");
-                        synchronized (this) {
+                        synchronized (Execution.this) {
                             if (alreadyCompleted) {
                                 return;
                             }
@@ -166,61 +313,70 @@ public void run() {
                             complete();
                         }
                     }
-                }, timeoutTimeMillis, TimeUnit.MILLISECONDS);
+                }, delayMillis, TimeUnit.MILLISECONDS);
             }
         }
 
         private void installChangeEventListener() {
-            Run relevantRun;
-            try {
-                relevantRun = getContext().get(Run.class);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            if (targetRunId != null) {
+                runId = targetRunId;
+            } else {
+                Run relevantRun;
+                try {
+                    relevantRun = getContext().get(Run.class);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                runId = relevantRun.getExternalizableId();
             }
 
-            listener = new CustomBuildPropertiesListener() {
-                @Override
-                public void onCustomBuildPropertyChanged(Run run, String key, Object oldValue, Object newValue) {
-                    if (run == relevantRun && keys.contains(key)) {
-                        LOGGER.log(Level.FINEST, "onCustomBuildPropertyChanged");
-                        check();
-                    }
-                }
-            };
-            CustomBuildPropertiesListener.all().add(listener);
+            WaitForCustomBuildPropertiesDispatcher.get().register(runId, keys, this);
         }
 
-        private void scheduleCheck() {
-            checkTask = Timer.get().schedule(new Runnable() {
-                @Override
-                public void run() {
-                    LOGGER.log(Level.FINEST, "scheduleCheck.run");
-                    if (!check()) {
-                        scheduleCheck();
-                    }
-                }
-            }, 10, TimeUnit.MINUTES);
+        @Override
+        public void onCustomBuildPropertyChanged() {
+            LOGGER.log(Level.FINEST, "onCustomBuildPropertyChanged");
+            check(false);
+        }
+
+        @Override
+        public void onRunCompleted() {
+            LOGGER.log(Level.FINEST, "onRunCompleted");
+            check(true);
         }
 
         private boolean check() {
+            return check(false);
+        }
+
+        /**
+         * @param runCompleted whether the awaited run is known to be completed
+         */
+        private boolean check(boolean runCompleted) {
             synchronized (this) {
                 if (alreadyCompleted) {
                     return true;
                 }
-                boolean allCustomBuildPropertiesExist;
+                Outcome outcome;
                 try {
-                    allCustomBuildPropertiesExist = allCustomBuildPropertiesExist();
+                    outcome = evaluate(runCompleted);
                 } catch (Exception e) {
                     getContext().onFailure(e);
                     complete();
                     return true;
                 }
-                if (allCustomBuildPropertiesExist) {
-                    getContext().onSuccess(null);
-                    complete();
-                    return true;
+                switch (outcome) {
+                    case SATISFIED:
+                        getContext().onSuccess(null);
+                        complete();
+                        return true;
+                    case RUN_FINISHED:
+                        getContext().onFailure(new AbortException("Build " + targetRunId + " finished without the custom build properties " + keys));
+                        complete();
+                        return true;
+                    default:
+                        return false;
                 }
-                return false;
             }
         }
 
@@ -230,13 +386,9 @@ private void complete() {
                 if (!alreadyCompleted) {
                     alreadyCompleted = true;
                     LOGGER.log(Level.FINEST, "complete - alreadyCompleted = true");
-                    if (listener != null) {
-                        CustomBuildPropertiesListener.all().remove(listener);
-                        LOGGER.log(Level.FINEST, "complete - removed listener");
-                    }
-                    if (checkTask != null) {
-                        checkTask.cancel(false);
-                        LOGGER.log(Level.FINEST, "complete - cancelled checkTask");
+                    if (runId != null) {
+                        WaitForCustomBuildPropertiesDispatcher.get().unregister(runId, keys, this);
+                        LOGGER.log(Level.FINEST, "complete - unregistered from dispatcher");
                     }
                     if (timeoutTask != null) {
                         timeoutTask.cancel(false);
@@ -249,15 +401,34 @@ private void complete() {
             }
         }
 
-        private boolean allCustomBuildPropertiesExist() throws Exception {
+        private Outcome evaluate(boolean runCompleted) throws Exception {
+            if (keys.isEmpty()) {
+                LOGGER.log(Level.FINEST, "evaluate - keys empty");
+                return Outcome.SATISFIED;
+            }
+            Run run = getRelevantRun();
+            // the current build is running this step, only a build of another job can be finished
+            boolean runFinished = targetRunId != null && (runCompleted || !run.isBuilding());
+            return evaluate(run.getAction(CustomBuildPropertiesAction.class), keys, conditions, runFinished);
+        }
+
+        /**
+         * @param action      the action of the awaited run, <code>null</code> if it has none yet
+         * @param runFinished whether the awaited run is not building anymore, so properties will not be set anymore
+         */
+        static Outcome evaluate(CustomBuildPropertiesAction action, List<String> keys, List<CustomBuildPropertyCondition> conditions, boolean runFinished) {
+            if (allCustomBuildPropertiesExist(action, keys, conditions)) {
+                return Outcome.SATISFIED;
+            }
+            return runFinished ? Outcome.RUN_FINISHED : Outcome.WAITING;
+        }
+
+        private static boolean allCustomBuildPropertiesExist(CustomBuildPropertiesAction action, List<String> keys, List<CustomBuildPropertyCondition> conditions) {
             if (keys.isEmpty()) {
                 LOGGER.log(Level.FINEST, "customBuildPropertiesExists - keys empty");
                 return true;
             }
 
-            Run run = getContext().get(Run.class);
-
-            final CustomBuildPropertiesAction action = run.getAction(CustomBuildPropertiesAction.class);
             if (action == null) {
                 LOGGER.log(Level.FINEST, "customBuildPropertiesExists - no action yet: {0}", keys);
                 return false;
@@ -270,6 +441,15 @@ private boolean allCustomBuildPropertiesExist() throws Exception {
                 }
             }
 
+            if (conditions != null) {
+                for (CustomBuildPropertyCondition condition : conditions) {
+                    if (!condition.test(action)) {
+                        LOGGER.log(Level.FINEST, "customBuildPropertiesExists - condition not met: {0}", condition);
+                        return false;
+                    }
+                }
+            }
+
             LOGGER.log(Level.FINEST, "customBuildPropertiesExists - all keys found: {0}", keys);
             return true;
         }
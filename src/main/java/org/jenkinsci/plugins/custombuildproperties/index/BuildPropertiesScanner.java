@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import hudson.model.Job;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesAction;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesSidecar;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the custom build properties of all builds of a job.
+ * <p>
+ * The properties are read from the sidecar file or the <code>build.xml</code> of the build without loading the run.
+ */
+final class BuildPropertiesScanner {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildPropertiesScanner.class.getName());
+
+    private BuildPropertiesScanner() {
+        super();
+    }
+
+    /**
+     * @return the numbers of the build directories, descending
+     */
+    static int[] getBuildNumbers(Job<?, ?> job) {
+        return getBuildNumbers(job.getBuildDir());
+    }
+
+    /**
+     * @return the numbers of the build directories, descending
+     */
+    static int[] getBuildNumbers(File buildDir) {
+        String[] names = buildDir.list();
+        if (names == null) {
+            return new int[0];
+        }
+        return Arrays.stream(names)
+                .filter(name -> !name.isEmpty() && name.chars().allMatch(Character::isDigit) && name.length() < 10)
+                .mapToInt(Integer::parseInt)
+                .map(buildNumber -> -buildNumber)
+                .sorted()
+                .map(buildNumber -> -buildNumber)
+                .toArray();
+    }
+
+    /**
+     * @return the properties of the build, <code>null</code> if it has none or does not exist
+     */
+    static Map<String, Object> read(Job<?, ?> job, int buildNumber) {
+        File buildDir = new File(job.getBuildDir(), String.valueOf(buildNumber));
+        try {
+            Map<String, Object> properties = CustomBuildPropertiesSidecar.readProperties(buildDir);
+            if (properties != null) {
+                return properties;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read sidecar of " + job.getFullName() + " #" + buildNumber, e);
+        }
+
+        try {
+            return CustomBuildPropertiesAction.readProperties(buildDir);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read " + job.getFullName() + " #" + buildNumber, e);
+            return null;
+        }
+    }
+
+}
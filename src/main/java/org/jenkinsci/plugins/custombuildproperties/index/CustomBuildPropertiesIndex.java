@@ -0,0 +1,325 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesListener;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of the builds which set a custom build property, per job and key.
+ * <p>
+ * The index of a job is built on first use by scanning its builds once in the background. Queries do not wait for
+ * this, callers fall back to a bounded search meanwhile. Afterwards it is kept up to date by change events and
+ * deleted builds. Per key only the sorted numbers of the builds are kept, 4 bytes per build and key.
+ */
+@Extension
+public class CustomBuildPropertiesIndex extends CustomBuildPropertiesListener {
+
+    private static final Logger LOGGER = Logger.getLogger(CustomBuildPropertiesIndex.class.getName());
+
+    public static CustomBuildPropertiesIndex get() {
+        return ExtensionList.lookupSingleton(CustomBuildPropertiesIndex.class);
+    }
+
+    /**
+     * Returned while the index of a job is not available yet.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentMap<String, JobIndex> jobIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * @return the function from a build number to the number of the latest previous build which set the key or
+     * <code>0</code>, <code>null</code> while the index of the job is built
+     */
+    public IntUnaryOperator getPreviousBuildNumbers(Job<?, ?> job, String key) {
+        JobIndex jobIndex = getScanned(job);
+        return jobIndex != null ? buildNumber -> jobIndex.getPreviousBuildNumber(key, buildNumber) : null;
+    }
+
+    /**
+     * @return whether the index of the job is available, otherwise it is built in the background
+     */
+    public boolean isAvailable(Job<?, ?> job) {
+        return getScanned(job) != null;
+    }
+
+    /**
+     * @return the index of the job, <code>null</code> while it is built in the background
+     */
+    private JobIndex getScanned(Job<?, ?> job) {
+        JobIndex jobIndex = jobIndexes.computeIfAbsent(job.getFullName(), notUsed -> new JobIndex());
+        if (!jobIndex.scanned) {
+            jobIndex.scanInBackground(job);
+            return null;
+        }
+        return jobIndex;
+    }
+
+    /**
+     * @return the numbers of the builds of the job which set the key, descending; empty if the index of the job is
+     * not available
+     */
+    int[] getBuildNumbers(String jobFullName, String key) {
+        JobIndex jobIndex = jobIndexes.get(jobFullName);
+        return jobIndex != null ? jobIndex.getBuildNumbers(key) : new int[0];
+    }
+
+    /**
+     * @return the number of the latest build of the job before the given build number which set the key,
+     * <code>0</code> if no such build did, {@link #UNKNOWN} while the index of the job is not available; does not
+     * start a scan
+     */
+    int getPreviousBuildNumber(String jobFullName, String key, int buildNumber) {
+        JobIndex jobIndex = jobIndexes.get(jobFullName);
+        if (jobIndex == null || !jobIndex.scanned) {
+            return UNKNOWN;
+        }
+        return jobIndex.getPreviousBuildNumber(key, buildNumber);
+    }
+
+    @Override
+    public void onCustomBuildPropertiesChanged(Run run, Map<String, Change> changes) {
+        if (run != null) {
+            onChanged(run.getParent().getFullName(), run.getNumber(), changes);
+        }
+    }
+
+    void onChanged(String jobFullName, int buildNumber, Map<String, Change> changes) {
+        JobIndex jobIndex = jobIndexes.get(jobFullName);
+        if (jobIndex != null) {
+            for (Map.Entry<String, Change> entry : changes.entrySet()) {
+                // like the scan, keys set to null are kept
+                if (entry.getValue().isRemoved()) {
+                    jobIndex.remove(entry.getKey(), buildNumber);
+                } else {
+                    jobIndex.put(entry.getKey(), buildNumber);
+                }
+            }
+        }
+    }
+
+    void removeBuild(String jobFullName, int buildNumber) {
+        JobIndex jobIndex = jobIndexes.get(jobFullName);
+        if (jobIndex != null) {
+            jobIndex.removeBuild(buildNumber);
+        }
+    }
+
+    void invalidate(String jobFullName) {
+        if (jobIndexes.remove(jobFullName) != null) {
+            LOGGER.log(Level.FINE, "invalidated index of {0}", jobFullName);
+        }
+    }
+
+    /**
+     * Scan the builds of the job now, only visible for testing.
+     */
+    void scan(String jobFullName, File buildDir, IntFunction<Map<String, Object>> reader) {
+        jobIndexes.computeIfAbsent(jobFullName, notUsed -> new JobIndex()).ensureScanned(jobFullName, buildDir, reader);
+    }
+
+    static final class JobIndex {
+
+        /**
+         * Guarded by this.
+         */
+        private final Map<String, BuildNumbers> buildNumbersByKey = new HashMap<>();
+
+        private volatile boolean scanned;
+
+        private final AtomicBoolean scanning = new AtomicBoolean();
+
+        private final Object scanLock = new Object();
+
+        synchronized int getPreviousBuildNumber(String key, int buildNumber) {
+            BuildNumbers buildNumbers = buildNumbersByKey.get(key);
+            return buildNumbers != null ? buildNumbers.lower(buildNumber) : 0;
+        }
+
+        synchronized int[] getBuildNumbers(String key) {
+            BuildNumbers buildNumbers = buildNumbersByKey.get(key);
+            return buildNumbers != null ? buildNumbers.toDescendingArray() : new int[0];
+        }
+
+        synchronized void put(String key, int buildNumber) {
+            buildNumbersByKey.computeIfAbsent(key, notUsed -> new BuildNumbers()).add(buildNumber);
+        }
+
+        synchronized void remove(String key, int buildNumber) {
+            BuildNumbers buildNumbers = buildNumbersByKey.get(key);
+            if (buildNumbers != null && buildNumbers.remove(buildNumber) && buildNumbers.isEmpty()) {
+                buildNumbersByKey.remove(key);
+            }
+        }
+
+        synchronized void removeBuild(int buildNumber) {
+            buildNumbersByKey.values().removeIf(buildNumbers -> buildNumbers.remove(buildNumber) && buildNumbers.isEmpty());
+        }
+
+        void scanInBackground(Job<?, ?> job) {
+            if (scanning.compareAndSet(false, true)) {
+                IndexExecutor.get().execute(() -> {
+                    try {
+                        ensureScanned(job.getFullName(), job.getBuildDir(), buildNumber -> BuildPropertiesScanner.read(job, buildNumber));
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Failed to index " + job.getFullName(), e);
+                    } finally {
+                        // allow another attempt if the scan failed
+                        scanning.set(false);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Scan all builds once. Events received meanwhile are merged, so nothing gets lost.
+         *
+         * @param reader reads the properties of the build of the given number
+         */
+        void ensureScanned(String jobFullName, File buildDir, IntFunction<Map<String, Object>> reader) {
+            synchronized (scanLock) {
+                if (scanned) {
+                    return;
+                }
+                long start = System.currentTimeMillis();
+                int[] buildNumbers = BuildPropertiesScanner.getBuildNumbers(buildDir);
+                for (int buildNumber : buildNumbers) {
+                    Map<String, Object> properties = reader.apply(buildNumber);
+                    if (properties != null) {
+                        for (String key : properties.keySet()) {
+                            put(key, buildNumber);
+                        }
+                    }
+                }
+                scanned = true;
+                LOGGER.log(Level.FINE, "scanned {0} builds of {1} in {2} ms",
+                        new Object[]{buildNumbers.length, jobFullName, System.currentTimeMillis() - start});
+            }
+        }
+
+    }
+
+    /**
+     * Sorted build numbers in an array, 4 bytes per build instead of about 40 of a set of boxed numbers.
+     */
+    static final class BuildNumbers {
+
+        private int[] numbers = new int[1];
+        private int size;
+
+        boolean add(int buildNumber) {
+            int index = Arrays.binarySearch(numbers, 0, size, buildNumber);
+            if (index >= 0) {
+                return false;
+            }
+            int insertion = -index - 1;
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size + (size >> 1) + 1);
+            }
+            System.arraycopy(numbers, insertion, numbers, insertion + 1, size - insertion);
+            numbers[insertion] = buildNumber;
+            size++;
+            return true;
+        }
+
+        boolean remove(int buildNumber) {
+            int index = Arrays.binarySearch(numbers, 0, size, buildNumber);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(numbers, index + 1, numbers, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * @return the greatest build number lower than the given one, <code>0</code> if none
+         */
+        int lower(int buildNumber) {
+            int index = Arrays.binarySearch(numbers, 0, size, buildNumber);
+            int insertion = index >= 0 ? index : -index - 1;
+            return insertion > 0 ? numbers[insertion - 1] : 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int[] toDescendingArray() {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = numbers[size - 1 - i];
+            }
+            return result;
+        }
+
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            get().removeBuild(run.getParent().getFullName(), run.getNumber());
+        }
+
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidate(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().invalidate(oldFullName);
+        }
+
+    }
+
+}
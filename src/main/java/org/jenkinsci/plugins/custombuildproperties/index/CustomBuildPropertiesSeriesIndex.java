@@ -0,0 +1,301 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+
+/**
+ * Values of custom build properties across the builds of a job.
+ * <p>
+ * The builds having a key are taken from the per-job {@link CustomBuildPropertiesIndex}, which is built once per job
+ * on first use. Only the values of the requested number of latest builds are read and cached per job and key. The
+ * number of cached series is bounded by the system property
+ * <code>org.jenkinsci.plugins.custombuildproperties.index.CustomBuildPropertiesSeriesIndex.maxSeries</code> (default
+ * 256), the least recently used is evicted. While the index of a job is built, only the latest <code>limit</code>
+ * builds are read. Values are read from the sidecar file or <code>build.xml</code> without loading the runs, and at most
+ * <code>maxLimit</code> (default 1000) builds per request.
+ */
+@Extension
+public class CustomBuildPropertiesSeriesIndex extends CustomBuildPropertiesListener {
+
+    /**
+     * Maximum number of cached series. Non-final for testing.
+     */
+    static int MAX_SERIES = SystemProperties.getInteger(CustomBuildPropertiesSeriesIndex.class.getName() + ".maxSeries", 256);
+
+    /**
+     * Maximum number of builds per series, also if the caller asks for all.
+     */
+    private static final int MAX_LIMIT = SystemProperties.getInteger(CustomBuildPropertiesSeriesIndex.class.getName() + ".maxLimit", 1000);
+
+    public static CustomBuildPropertiesSeriesIndex get() {
+        return ExtensionList.lookupSingleton(CustomBuildPropertiesSeriesIndex.class);
+    }
+
+    private final Map<SeriesKey, Series> seriesByKey = new LeastRecentlyUsedSeries();
+
+    /**
+     * @param limit maximum number of builds
+     * @return the limit bounded by <code>maxLimit</code> (default 1000), which also applies if the limit is not positive
+     */
+    public static int getEffectiveLimit(int limit) {
+        return limit > 0 ? Math.min(limit, MAX_LIMIT) : MAX_LIMIT;
+    }
+
+    /**
+     * @param limit maximum number of builds per key, see {@link #getEffectiveLimit(int)}
+     * @return the values of each key by build number, latest build first
+     */
+    public Map<String, NavigableMap<Integer, Object>> getSeries(Job<?, ?> job, Collection<String> keys, int limit) {
+        final int effectiveLimit = getEffectiveLimit(limit);
+        IntFunction<Map<String, Object>> reader = buildNumber -> BuildPropertiesScanner.read(job, buildNumber);
+        CustomBuildPropertiesIndex keyIndex = CustomBuildPropertiesIndex.get();
+        if (!keyIndex.isAvailable(job)) {
+            // only the latest builds, keys no build has must not read the whole job
+            int[] buildNumbers = BuildPropertiesScanner.getBuildNumbers(job);
+            return scanSeries(Arrays.copyOf(buildNumbers, Math.min(buildNumbers.length, effectiveLimit)), keys, effectiveLimit, reader);
+        }
+
+        String jobFullName = job.getFullName();
+        Map<String, NavigableMap<Integer, Object>> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            result.put(key, getSeries(jobFullName, key, keyIndex.getBuildNumbers(jobFullName, key), effectiveLimit, reader));
+        }
+        return result;
+    }
+
+    /**
+     * @param buildNumbers the numbers of the builds having the key, descending
+     */
+    NavigableMap<Integer, Object> getSeries(String jobFullName, String key, int[] buildNumbers, int limit,
+                                            IntFunction<Map<String, Object>> reader) {
+        NavigableMap<Integer, Object> result = new TreeMap<>(Collections.reverseOrder());
+        if (buildNumbers.length == 0) {
+            // no entry for keys no build has
+            return result;
+        }
+
+        Series series;
+        synchronized (seriesByKey) {
+            series = seriesByKey.computeIfAbsent(new SeriesKey(jobFullName, key), notUsed -> new Series());
+        }
+        for (int i = 0; (limit <= 0 || result.size() < limit) && i < buildNumbers.length; i++) {
+            int buildNumber = buildNumbers[i];
+            Object value = series.values.get(buildNumber);
+            if (value == null) {
+                Map<String, Object> properties = reader.apply(buildNumber);
+                value = properties != null ? properties.get(key) : null;
+                if (value != null) {
+                    Object eventValue = series.values.putIfAbsent(buildNumber, value);
+                    value = eventValue != null ? eventValue : value;
+                }
+            }
+            if (value != null) {
+                result.put(buildNumber, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the builds, latest first, until each key has <code>limit</code> values.
+     *
+     * @param buildNumbers the numbers of all builds, descending
+     */
+    static Map<String, NavigableMap<Integer, Object>> scanSeries(int[] buildNumbers, Collection<String> keys, int limit,
+                                                                 IntFunction<Map<String, Object>> reader) {
+        Map<String, NavigableMap<Integer, Object>> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            result.put(key, new TreeMap<>(Collections.reverseOrder()));
+        }
+        for (int buildNumber : buildNumbers) {
+            if (limit > 0 && result.values().stream().allMatch(values -> values.size() >= limit)) {
+                break;
+            }
+            Map<String, Object> properties = reader.apply(buildNumber);
+            if (properties == null) {
+                continue;
+            }
+            for (Map.Entry<String, NavigableMap<Integer, Object>> entry : result.entrySet()) {
+                Object value = properties.get(entry.getKey());
+                if (value != null && (limit <= 0 || entry.getValue().size() < limit)) {
+                    entry.getValue().put(buildNumber, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of cached series
+     */
+    int getSize() {
+        synchronized (seriesByKey) {
+            return seriesByKey.size();
+        }
+    }
+
+    @Override
+    public void onCustomBuildPropertiesChanged(Run run, Map<String, Change> changes) {
+        if (run == null) {
+            return;
+        }
+        String jobFullName = run.getParent().getFullName();
+        for (Map.Entry<String, Change> entry : changes.entrySet()) {
+            Series series;
+            synchronized (seriesByKey) {
+                series = seriesByKey.get(new SeriesKey(jobFullName, entry.getKey()));
+            }
+            if (series != null) {
+                series.put(run.getNumber(), entry.getValue().getNewValue());
+            }
+        }
+    }
+
+    void removeBuild(String jobFullName, int buildNumber) {
+        synchronized (seriesByKey) {
+            seriesByKey.forEach((seriesKey, series) -> {
+                if (seriesKey.jobFullName.equals(jobFullName)) {
+                    series.values.remove(buildNumber);
+                }
+            });
+        }
+    }
+
+    void invalidate(String jobFullName) {
+        synchronized (seriesByKey) {
+            seriesByKey.keySet().removeIf(seriesKey -> seriesKey.jobFullName.equals(jobFullName));
+        }
+    }
+
+    private static final class SeriesKey {
+
+        private final String jobFullName;
+        private final String key;
+
+        private SeriesKey(String jobFullName, String key) {
+            this.jobFullName = jobFullName;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SeriesKey that = (SeriesKey) o;
+            return jobFullName.equals(that.jobFullName) && Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jobFullName, key);
+        }
+
+    }
+
+    /**
+     * Evicts the least recently used series beyond {@link #MAX_SERIES}.
+     */
+    private static final class LeastRecentlyUsedSeries extends LinkedHashMap<SeriesKey, Series> {
+
+        private static final long serialVersionUID = 1L;
+
+        private LeastRecentlyUsedSeries() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SeriesKey, Series> eldest) {
+            return size() > MAX_SERIES;
+        }
+
+    }
+
+    /**
+     * Values read so far or received by events, by build number.
+     */
+    static final class Series {
+
+        private final ConcurrentSkipListMap<Integer, Object> values = new ConcurrentSkipListMap<>();
+
+        void put(int buildNumber, Object value) {
+            if (value == null) {
+                values.remove(buildNumber);
+            } else {
+                values.put(buildNumber, value);
+            }
+        }
+
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            get().removeBuild(run.getParent().getFullName(), run.getNumber());
+        }
+
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidate(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().invalidate(oldFullName);
+        }
+
+    }
+
+}
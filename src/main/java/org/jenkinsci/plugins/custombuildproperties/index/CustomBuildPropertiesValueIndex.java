@@ -0,0 +1,464 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesAction;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesListener;
+import org.jenkinsci.plugins.custombuildproperties.PatternCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of the builds of all jobs by custom build property value.
+ * <p>
+ * Values are compared by their remote string form, e.g. <code>true</code> or <code>2026-10-17T10:15:30Z</code>. Only
+ * keys matching the regex of the system property
+ * <code>org.jenkinsci.plugins.custombuildproperties.index.CustomBuildPropertiesValueIndex.includeKeys</code> are
+ * indexed, none per default. Each indexed value of each build costs about 200 bytes of heap, so only keys searched for
+ * should be included, e.g. <code>gitCommit|releaseCandidate</code>, not table cells. Internal <code>_cbp_</code> keys
+ * and values longer than <code>maxValueLength</code> (default 256) are never indexed.
+ * <p>
+ * If keys are included, the index is rebuilt job by job by the {@link IndexExecutor} after startup and kept up to date
+ * by change events. Until the rebuild completed, queries only see the builds of the jobs scanned so far and changed
+ * builds, see {@link #scanLatest(Job)} to index the latest builds of a job on demand. The indexed values of each job
+ * are cached in a {@link JobIndexFile}, so the rebuild only reads builds changed since the last one.
+ */
+@Extension
+public class CustomBuildPropertiesValueIndex extends CustomBuildPropertiesListener {
+
+    private static final Logger LOGGER = Logger.getLogger(CustomBuildPropertiesValueIndex.class.getName());
+
+    /**
+     * Non-final for testing.
+     */
+    static String INCLUDE_KEYS = SystemProperties.getString(CustomBuildPropertiesValueIndex.class.getName() + ".includeKeys", "");
+
+    private static final int MAX_VALUE_LENGTH = SystemProperties.getInteger(CustomBuildPropertiesValueIndex.class.getName() + ".maxValueLength", 256);
+
+    private static final int FALLBACK_MAX_BUILDS = SystemProperties.getInteger(CustomBuildPropertiesValueIndex.class.getName() + ".fallbackMaxBuilds", 100);
+
+    private static final String INTERNAL_KEY_PREFIX = "_cbp_";
+
+    public static CustomBuildPropertiesValueIndex get() {
+        return ExtensionList.lookupSingleton(CustomBuildPropertiesValueIndex.class);
+    }
+
+    /**
+     * Key to value to externalizable ids of runs.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Set<String>>> runIdsByValueByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Externalizable id of run to key to value, to remove outdated values.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> valueByKeyByRunId = new ConcurrentHashMap<>();
+
+    /**
+     * Keys removed by change events per externalizable id of run, so scans running meanwhile do not add the value
+     * read from disk again. Kept until no scan is running anymore.
+     */
+    private final Map<String, Set<String>> removedKeysByRunId = new HashMap<>();
+
+    /**
+     * Externalizable ids of deleted runs, kept like {@link #removedKeysByRunId}.
+     */
+    private final Set<String> deletedRunIds = new HashSet<>();
+
+    private int runningScans;
+
+    /**
+     * Full names of the jobs scanned since startup.
+     */
+    private final Set<String> scannedJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Full names of the jobs whose scan is queued by {@link #scanLatest(Job)}.
+     */
+    private final Set<String> scheduledJobs = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean complete;
+
+    /**
+     * @return whether the index contains all builds, <code>false</code> while rebuilding after startup
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return whether the index contains all builds of the job
+     */
+    public boolean isComplete(String jobFullName) {
+        return complete || scannedJobs.contains(jobFullName);
+    }
+
+    /**
+     * Index the latest builds of the job now if the startup rebuild did not reach it yet, so queries from requests or
+     * steps block at most for reading <code>fallbackMaxBuilds</code> (default 100) builds. All builds of the job are
+     * scanned in the background then.
+     *
+     * @return whether all builds of the job are indexed
+     */
+    public boolean scanLatest(Job<?, ?> job) {
+        String jobFullName = job.getFullName();
+        if (isComplete(jobFullName)) {
+            return true;
+        }
+        scan(jobFullName, new File(job.getRootDir(), JobIndexFile.FILE_NAME), job.getBuildDir(),
+                buildNumber -> BuildPropertiesScanner.read(job, buildNumber), FALLBACK_MAX_BUILDS);
+        if (isComplete(jobFullName)) {
+            return true;
+        }
+        if (scheduledJobs.add(jobFullName)) {
+            IndexExecutor.get().execute(() -> {
+                try {
+                    if (!isComplete(jobFullName)) {
+                        scan(job);
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to index " + jobFullName, e);
+                } finally {
+                    scheduledJobs.remove(jobFullName);
+                }
+            });
+        }
+        return false;
+    }
+
+    /**
+     * @return the externalizable ids of the runs which have the value for the key, sorted by job and descending number
+     */
+    public List<String> findRunIds(String key, Object value) {
+        String indexedValue = toIndexedValue(key, value);
+        if (indexedValue == null) {
+            return Collections.emptyList();
+        }
+        Map<String, Set<String>> runIdsByValue = runIdsByValueByKey.get(key);
+        Set<String> runIds = runIdsByValue != null ? runIdsByValue.get(indexedValue) : null;
+        if (runIds == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(runIds);
+        result.sort((a, b) -> {
+            int separatorA = a.lastIndexOf('#');
+            int separatorB = b.lastIndexOf('#');
+            int jobOrder = a.substring(0, separatorA).compareTo(b.substring(0, separatorB));
+            if (jobOrder != 0) {
+                return jobOrder;
+            }
+            return Integer.compare(Integer.parseInt(b.substring(separatorB + 1)), Integer.parseInt(a.substring(separatorA + 1)));
+        });
+        return result;
+    }
+
+    /**
+     * @return whether the key is indexed
+     */
+    public boolean isIndexed(String key) {
+        return key != null && !INCLUDE_KEYS.isEmpty() && !key.startsWith(INTERNAL_KEY_PREFIX)
+                && PatternCache.compile(INCLUDE_KEYS).matcher(key).matches();
+    }
+
+    String toIndexedValue(String key, Object value) {
+        if (value == null || !isIndexed(key)) {
+            return null;
+        }
+        String indexedValue = CustomBuildPropertiesAction.toRemoteString(value);
+        return indexedValue.length() <= MAX_VALUE_LENGTH ? indexedValue : null;
+    }
+
+    @Override
+    public void onCustomBuildPropertiesChanged(Run run, Map<String, Change> changes) {
+        if (run == null) {
+            return;
+        }
+        String runId = run.getExternalizableId();
+        for (Map.Entry<String, Change> entry : changes.entrySet()) {
+            put(runId, entry.getKey(), toIndexedValue(entry.getKey(), entry.getValue().getNewValue()), true);
+        }
+    }
+
+    /**
+     * @param replace whether to replace a known value, otherwise only unknown values are added
+     */
+    synchronized void put(String runId, String key, String indexedValue, boolean replace) {
+        if (replace) {
+            if (indexedValue == null && isTracking() && isIndexed(key)) {
+                removedKeysByRunId.computeIfAbsent(runId, notUsed -> new HashSet<>()).add(key);
+            }
+        } else if (deletedRunIds.contains(runId) || removedKeysByRunId.getOrDefault(runId, Collections.emptySet()).contains(key)) {
+            return;
+        }
+        ConcurrentMap<String, String> valueByKey = valueByKeyByRunId.computeIfAbsent(runId, notUsed -> new ConcurrentHashMap<>());
+        if (!replace && valueByKey.containsKey(key)) {
+            return;
+        }
+
+        String oldValue = indexedValue != null ? valueByKey.put(key, indexedValue) : valueByKey.remove(key);
+        if (oldValue != null) {
+            removeRunId(key, oldValue, runId);
+        }
+        if (indexedValue != null) {
+            runIdsByValueByKey.computeIfAbsent(key, notUsed -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(indexedValue, notUsed -> ConcurrentHashMap.newKeySet())
+                    .add(runId);
+        }
+        if (valueByKey.isEmpty()) {
+            valueByKeyByRunId.remove(runId);
+        }
+    }
+
+    private void removeRunId(String key, String indexedValue, String runId) {
+        Map<String, Set<String>> runIdsByValue = runIdsByValueByKey.get(key);
+        if (runIdsByValue == null) {
+            return;
+        }
+        Set<String> runIds = runIdsByValue.get(indexedValue);
+        if (runIds != null) {
+            runIds.remove(runId);
+            if (runIds.isEmpty()) {
+                runIdsByValue.remove(indexedValue);
+            }
+        }
+    }
+
+    synchronized void removeRun(String runId) {
+        if (isTracking()) {
+            deletedRunIds.add(runId);
+        }
+        Map<String, String> valueByKey = valueByKeyByRunId.remove(runId);
+        if (valueByKey != null) {
+            valueByKey.forEach((key, indexedValue) -> removeRunId(key, indexedValue, runId));
+        }
+    }
+
+    synchronized void removeItem(String fullName) {
+        // the item may also be a folder
+        String runIdPrefix = fullName + "#";
+        String childPrefix = fullName + "/";
+        scannedJobs.removeIf(jobFullName -> jobFullName.equals(fullName) || jobFullName.startsWith(childPrefix));
+        for (String runId : new ArrayList<>(valueByKeyByRunId.keySet())) {
+            if (runId.startsWith(runIdPrefix) && runId.indexOf('#', runIdPrefix.length()) < 0 || runId.startsWith(childPrefix)) {
+                removeRun(runId);
+            }
+        }
+    }
+
+    /**
+     * @return whether removals must be remembered for running scans
+     */
+    private boolean isTracking() {
+        return !complete || runningScans > 0;
+    }
+
+    synchronized void beginScan() {
+        runningScans++;
+    }
+
+    synchronized void endScan() {
+        runningScans--;
+        if (!isTracking()) {
+            removedKeysByRunId.clear();
+            deletedRunIds.clear();
+        }
+    }
+
+    /**
+     * End the scan of the startup rebuild.
+     */
+    synchronized void completeRebuild() {
+        complete = true;
+        endScan();
+    }
+
+    /**
+     * Add the values of all builds of the job, keeping values known from change events. Builds not changed since the
+     * last scan are taken from the {@link JobIndexFile}, the file is updated afterwards.
+     */
+    void scan(Job<?, ?> job) {
+        scan(job.getFullName(), new File(job.getRootDir(), JobIndexFile.FILE_NAME), job.getBuildDir(),
+                buildNumber -> BuildPropertiesScanner.read(job, buildNumber));
+    }
+
+    /**
+     * @param reader reads the properties of the build of the given number
+     * @return the number of builds read, i.e. not taken from the index file
+     */
+    int scan(String jobFullName, File indexFile, File buildDir, IntFunction<Map<String, Object>> reader) {
+        return scan(jobFullName, indexFile, buildDir, reader, 0);
+    }
+
+    /**
+     * @param maxBuilds only scan this many of the latest builds, all if not positive; the job is only complete and the
+     *                  index file only updated if all builds were scanned
+     */
+    int scan(String jobFullName, File indexFile, File buildDir, IntFunction<Map<String, Object>> reader, int maxBuilds) {
+        beginScan();
+        try {
+            return doScan(jobFullName, indexFile, buildDir, reader, maxBuilds);
+        } finally {
+            endScan();
+        }
+    }
+
+    private int doScan(String jobFullName, File indexFile, File buildDir, IntFunction<Map<String, Object>> reader, int maxBuilds) {
+        final String configuration = INCLUDE_KEYS + '\n' + MAX_VALUE_LENGTH;
+        final Map<Integer, JobIndexFile.BuildEntry> cachedEntries = JobIndexFile.read(indexFile, configuration);
+        final Map<Integer, JobIndexFile.BuildEntry> entries = new TreeMap<>();
+
+        final int[] buildNumbers = BuildPropertiesScanner.getBuildNumbers(buildDir);
+        final boolean partial = maxBuilds > 0 && buildNumbers.length > maxBuilds;
+        final int buildCount = partial ? maxBuilds : buildNumbers.length;
+        int readBuildCount = 0;
+        for (int i = 0; i < buildCount; i++) {
+            final int buildNumber = buildNumbers[i];
+            // stamp before reading, so concurrent changes are read again next time
+            long stamp = JobIndexFile.getStamp(new File(buildDir, String.valueOf(buildNumber)));
+            JobIndexFile.BuildEntry entry = cachedEntries.get(buildNumber);
+            if (entry == null || entry.getStamp() != stamp) {
+                Map<String, String> values = new HashMap<>();
+                Map<String, Object> properties = reader.apply(buildNumber);
+                if (properties != null) {
+                    for (Map.Entry<String, Object> property : properties.entrySet()) {
+                        String indexedValue = toIndexedValue(property.getKey(), property.getValue());
+                        if (indexedValue != null) {
+                            values.put(property.getKey(), indexedValue);
+                        }
+                    }
+                }
+                entry = new JobIndexFile.BuildEntry(stamp, values);
+                readBuildCount++;
+            }
+            entries.put(buildNumber, entry);
+
+            String runId = jobFullName + "#" + buildNumber;
+            for (Map.Entry<String, String> value : entry.getValues().entrySet()) {
+                if (value.getValue() != null) {
+                    put(runId, value.getKey(), value.getValue(), false);
+                }
+            }
+        }
+        if (partial) {
+            LOGGER.log(Level.FINE, "scanned {0} of the latest {1} builds of {2}", new Object[]{readBuildCount, buildCount, jobFullName});
+            return readBuildCount;
+        }
+        scannedJobs.add(jobFullName);
+
+        if (readBuildCount > 0 || entries.size() != cachedEntries.size()) {
+            try {
+                JobIndexFile.write(indexFile, configuration, entries);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write " + indexFile, e);
+            }
+        }
+        LOGGER.log(Level.FINE, "scanned {0} of {1} builds of {2}", new Object[]{readBuildCount, entries.size(), jobFullName});
+        return readBuildCount;
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        int jobCount = 0;
+        beginScan();
+        try {
+            for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                try {
+                    scan(job);
+                    jobCount++;
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to index " + job.getFullName(), e);
+                }
+            }
+        } finally {
+            completeRebuild();
+        }
+        LOGGER.log(Level.INFO, "Indexed custom build property values of {0} jobs in {1} ms",
+                new Object[]{jobCount, System.currentTimeMillis() - start});
+    }
+
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void rebuildInBackground() {
+        if (INCLUDE_KEYS.isEmpty()) {
+            // nothing to index, so no builds are read
+            get().complete = true;
+            return;
+        }
+        IndexExecutor.get().execute(() -> get().rebuild());
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            get().removeRun(run.getExternalizableId());
+        }
+
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            get().removeItem(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            CustomBuildPropertiesValueIndex index = get();
+            index.removeItem(oldFullName);
+            if (item instanceof Job && !INCLUDE_KEYS.isEmpty()) {
+                IndexExecutor.get().execute(() -> index.scan((Job<?, ?>) item));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Versioned binary file in the job directory caching the indexed custom build properties of each build.
+ * <p>
+ * Each build is stored with a stamp of its build directory (see {@link #getStamp(File)}), so only builds changed since
+ * the file was written need to be read again. Entries are sorted by build number and key.
+ */
+final class JobIndexFile {
+
+    private static final Logger LOGGER = Logger.getLogger(JobIndexFile.class.getName());
+
+    static final String FILE_NAME = "custombuildproperties-index.bin";
+
+    private static final int MAGIC = 0x43425049;
+
+    static final int VERSION = 3;
+
+    private static final String[] STAMPED_FILE_NAMES = {"build.xml", "custombuildproperties.json"};
+
+    private JobIndexFile() {
+        super();
+    }
+
+    /**
+     * Indexed values of a build by key.
+     */
+    static final class BuildEntry {
+
+        private final long stamp;
+        private final Map<String, String> values;
+
+        BuildEntry(long stamp, Map<String, String> values) {
+            this.stamp = stamp;
+            this.values = Collections.unmodifiableMap(new TreeMap<>(values));
+        }
+
+        long getStamp() {
+            return stamp;
+        }
+
+        Map<String, String> getValues() {
+            return values;
+        }
+
+    }
+
+    /**
+     * @return hash of modification time and size of the files holding the properties of the build; the size catches
+     * changes within the granularity of the modification time
+     */
+    static long getStamp(File buildDir) {
+        long stamp = 0L;
+        for (String fileName : STAMPED_FILE_NAMES) {
+            File file = new File(buildDir, fileName);
+            stamp = 31 * (31 * stamp + file.lastModified()) + file.length();
+        }
+        return stamp;
+    }
+
+    /**
+     * @param configuration settings the entries depend on, entries written with other settings are ignored
+     * @return the entries by build number, empty if the file does not exist, is corrupt or of another version
+     */
+    static Map<Integer, BuildEntry> read(File file, String configuration) {
+        Map<Integer, BuildEntry> entries = new TreeMap<>();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            // no string can be longer than the file
+            long maxLength = Files.size(file.toPath());
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+            if (data.readInt() != MAGIC || data.readInt() != VERSION || !configuration.equals(readString(data, maxLength))) {
+                LOGGER.log(Level.FINE, "Ignoring {0} of other version or configuration", file);
+                return entries;
+            }
+            int buildCount = data.readInt();
+            for (int i = 0; i < buildCount; i++) {
+                int buildNumber = data.readInt();
+                long stamp = data.readLong();
+                int valueCount = data.readInt();
+                Map<String, String> values = new TreeMap<>();
+                for (int j = 0; j < valueCount; j++) {
+                    String key = readString(data, maxLength);
+                    values.put(key, data.readBoolean() ? readString(data, maxLength) : null);
+                }
+                entries.put(buildNumber, new BuildEntry(stamp, values));
+            }
+        } catch (NoSuchFileException e) {
+            LOGGER.log(Level.FINE, "No {0}", file);
+        } catch (EOFException e) {
+            LOGGER.log(Level.WARNING, "Ignoring truncated " + file, e);
+            entries.clear();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable " + file, e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Replace the file atomically, readers never see a partially written file.
+     */
+    static void write(File file, String configuration, Map<Integer, BuildEntry> entries) throws IOException {
+        Path tmp = Files.createTempFile(file.getParentFile().toPath(), FILE_NAME, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                writeString(data, configuration);
+                data.writeInt(entries.size());
+                for (Map.Entry<Integer, BuildEntry> entry : new TreeMap<>(entries).entrySet()) {
+                    data.writeInt(entry.getKey());
+                    data.writeLong(entry.getValue().stamp);
+                    data.writeInt(entry.getValue().values.size());
+                    for (Map.Entry<String, String> value : entry.getValue().values.entrySet()) {
+                        writeString(data, value.getKey());
+                        data.writeBoolean(value.getValue() != null);
+                        if (value.getValue() != null) {
+                            writeString(data, value.getValue());
+                        }
+                    }
+                }
+                data.flush();
+            }
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Like {@link DataOutputStream#writeUTF(String)} but without length limit.
+     */
+    private static void writeString(DataOutputStream data, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data, long maxLength) throws IOException {
+        int length = data.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -26,13 +26,16 @@
 
 import hudson.markup.MarkupFormatter;
 import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesAction;
+import org.jenkinsci.plugins.custombuildproperties.PatternCache;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -42,16 +45,32 @@
  */
 public class CbpTablesFactory {
 
-    private final Map<String, Object> properties;
+    private static final String QUANTIFIERS = "?*{";
+    private static final String METACHARACTERS = "\\[](){}.*+?^$|";
+
+    private final NavigableMap<String, Object> properties;
     private final MarkupFormatter defaultMarkupFormatter;
     private final Set<String> internalSanitizer = new HashSet<>();
     private final List<CbpTable> tables = new ArrayList<>();
 
     public CbpTablesFactory(Map<String, Object> properties, MarkupFormatter defaultMarkupFormatter) {
-        this.properties = properties;
+        this.properties = toNavigableMap(properties);
         this.defaultMarkupFormatter = defaultMarkupFormatter;
     }
 
+    private static NavigableMap<String, Object> toNavigableMap(Map<String, Object> properties) {
+        if (properties instanceof NavigableMap && ((NavigableMap<String, Object>) properties).comparator() == null) {
+            return (NavigableMap<String, Object>) properties;
+        }
+        NavigableMap<String, Object> result = new TreeMap<>();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            if (property.getKey() != null) {
+                result.put(property.getKey(), property.getValue());
+            }
+        }
+        return result;
+    }
+
     public List<CbpTable> createTables() {
         createTablesAndPopulateInternalSanitizer();
         putTableValues();
@@ -59,55 +78,56 @@ public List<CbpTable> createTables() {
     }
 
     private void createTablesAndPopulateInternalSanitizer() {
-        Iterator<Map.Entry<String, Object>> propertiesI = properties.entrySet().iterator();
-        while (propertiesI.hasNext()) {
-            Map.Entry<String, Object> property = propertiesI.next();
-            String key = property.getKey();
+        Iterator<Map.Entry<String, Object>> tablesI = withPrefix(CustomBuildPropertiesAction.CBP_TABLE_PREFIX).entrySet().iterator();
+        while (tablesI.hasNext()) {
+            Map.Entry<String, Object> property = tablesI.next();
             Object value = property.getValue();
-            if (key != null) {
-                if (value instanceof String) {
-                    if (key.startsWith(CustomBuildPropertiesAction.CBP_TABLE_PREFIX)) {
-                        String name = key.substring(CustomBuildPropertiesAction.CBP_TABLE_PREFIX.length());
-                        Pattern pattern;
-                        try {
-                            pattern = Pattern.compile((String) value);
-                        } catch (PatternSyntaxException e) {
-                            pattern = null;
-                        }
-                        if (pattern != null) {
-                            CbpTable table = new CbpTable(name, pattern, defaultMarkupFormatter);
-                            tables.add(table);
-                            propertiesI.remove();
-                        }
-                    } else if (key.startsWith(CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX)) {
-                        if (CustomBuildPropertiesAction.CBP_INTERNAL_SANITIZER.equals(value)) {
-                            internalSanitizer.add(key.substring(CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX.length()));
-                            propertiesI.remove();
-                        }
-                    }
+            if (value instanceof String) {
+                String name = property.getKey().substring(CustomBuildPropertiesAction.CBP_TABLE_PREFIX.length());
+                Pattern pattern;
+                try {
+                    pattern = PatternCache.compile((String) value);
+                } catch (PatternSyntaxException e) {
+                    pattern = null;
+                }
+                if (pattern != null) {
+                    CbpTable table = new CbpTable(name, pattern, defaultMarkupFormatter);
+                    tables.add(table);
+                    tablesI.remove();
                 }
             }
         }
+
+        Iterator<Map.Entry<String, Object>> sanitizersI = withPrefix(CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX).entrySet().iterator();
+        while (sanitizersI.hasNext()) {
+            Map.Entry<String, Object> property = sanitizersI.next();
+            if (CustomBuildPropertiesAction.CBP_INTERNAL_SANITIZER.equals(property.getValue())) {
+                internalSanitizer.add(property.getKey().substring(CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX.length()));
+                sanitizersI.remove();
+            }
+        }
     }
 
+    /**
+     * A key matched by several tables is only put into the first of them, i.e. the one with the lowest name.
+     */
     private void putTableValues() {
-        Iterator<Map.Entry<String, Object>> propertiesI = properties.entrySet().iterator();
-        while (propertiesI.hasNext()) {
-            Map.Entry<String, Object> property = propertiesI.next();
-            String key = property.getKey();
-            Object value = property.getValue();
-            if (key != null) {
-                for (CbpTable table : tables) {
-                    Matcher matcher = table.getPattern().matcher(key);
-                    if (matcher.matches() && matcher.groupCount() >= 2) {
-                        String rowName = matcher.group(1);
-                        String columnName = matcher.group(2);
-                        putTableValue(table, rowName, columnName, value);
-                        propertiesI.remove();
-                    }
+        Set<String> tableKeys = new HashSet<>();
+        for (CbpTable table : tables) {
+            for (Map.Entry<String, Object> property : withPrefix(literalPrefix(table.getPattern().pattern())).entrySet()) {
+                if (tableKeys.contains(property.getKey())) {
+                    continue;
+                }
+                Matcher matcher = table.getPattern().matcher(property.getKey());
+                if (matcher.matches() && matcher.groupCount() >= 2) {
+                    String rowName = matcher.group(1);
+                    String columnName = matcher.group(2);
+                    putTableValue(table, rowName, columnName, property.getValue());
+                    tableKeys.add(property.getKey());
                 }
             }
         }
+        properties.keySet().removeAll(tableKeys);
 
         if (!properties.isEmpty()) {
             CbpTable table = new CbpTable("Key", null, defaultMarkupFormatter);
@@ -119,6 +139,68 @@ private void putTableValues() {
         }
     }
 
+    /**
+     * @return view of the properties with keys starting with the prefix
+     */
+    private NavigableMap<String, Object> withPrefix(String prefix) {
+        NavigableMap<String, Object> tail = properties.tailMap(prefix, true);
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return tail.headMap(prefix.substring(0, i) + (char) (c + 1), false);
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Determine conservatively the literal text every key matching the regex must start with.
+     *
+     * @return the prefix, empty if unknown
+     */
+    static String literalPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\' && regex.startsWith("\\Q", i)) {
+                int end = regex.indexOf("\\E", i + 2);
+                String quoted = end >= 0 ? regex.substring(i + 2, end) : regex.substring(i + 2);
+                int next = end >= 0 ? end + 2 : regex.length();
+                if (next < regex.length() && QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                    prefix.append(quoted, 0, Math.max(quoted.length() - 1, 0));
+                    break;
+                }
+                prefix.append(quoted);
+                i = next;
+                continue;
+            }
+            int next;
+            char literal;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    break;
+                }
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (next < regex.length() && QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(literal);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
     private void putTableValue(CbpTable table, String rowName, String columnName, Object value) {
         boolean sanitizeInternal = internalSanitizer.contains(table.getName() + '_' + rowName + '_' + columnName);
         table.putValue(rowName, columnName, value, sanitizeInternal);
@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.util.XStream2;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactPropertiesMapTest {
+
+    private static Map<String, Object> createValues() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("int", 42);
+        values.put("long", Long.MAX_VALUE);
+        values.put("double", 1.5d);
+        values.put("float", -0.25f);
+        values.put("boolean", true);
+        values.put("string", "<b>text</b>");
+        values.put("date", new Date(1234567890L));
+        values.put("null", null);
+        return values;
+    }
+
+    @Test
+    void test_of_keeps_values_and_types() {
+        Map<String, Object> values = createValues();
+        Map<String, Object> compact = CompactPropertiesMap.of(values);
+
+        assertInstanceOf(CompactPropertiesMap.class, compact);
+        assertEquals(values, compact);
+        assertEquals(values.hashCode(), compact.hashCode());
+        assertInstanceOf(Integer.class, compact.get("int"));
+        assertInstanceOf(Float.class, compact.get("float"));
+        assertTrue(compact.containsKey("null"));
+        assertNull(compact.get("null"));
+        assertFalse(compact.containsKey("missing"));
+        assertFalse(compact.containsKey(42));
+    }
+
+    @Test
+    void test_null_key_not_compacted() {
+        Map<String, Object> values = new HashMap<>();
+        values.put(null, 1);
+        assertInstanceOf(HashMap.class, CompactPropertiesMap.of(values));
+    }
+
+    @Test
+    void test_with_inserts_and_replaces() {
+        Map<String, Object> values = createValues();
+        CompactPropertiesMap compact = (CompactPropertiesMap) CompactPropertiesMap.of(values);
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("int", "now a string");
+        changes.put("aaa", 1L);
+        changes.put("zzz", null);
+        changes.put("string", 2.5d);
+        Map<String, Object> changed = compact.with(changes);
+
+        Map<String, Object> expected = new HashMap<>(values);
+        expected.putAll(changes);
+        assertInstanceOf(CompactPropertiesMap.class, changed);
+        assertEquals(expected, changed);
+        assertArrayEquals(new TreeMap<>(expected).keySet().toArray(), ((CompactPropertiesMap) changed).getSortedKeys());
+        // not modified
+        assertEquals(values, compact);
+    }
+
+    @Test
+    void test_with_single_key() {
+        CompactPropertiesMap compact = (CompactPropertiesMap) CompactPropertiesMap.of(Collections.singletonMap("b", 1));
+
+        assertEquals(Collections.singletonMap("b", 2), compact.with(Collections.singletonMap("b", 2)));
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("a", true);
+        expected.put("b", 1);
+        assertEquals(expected, compact.with(Collections.singletonMap("a", true)));
+        assertSame(compact, compact.with(Collections.emptyMap()));
+    }
+
+    @Test
+    void test_with_null_key_not_compacted() {
+        CompactPropertiesMap compact = (CompactPropertiesMap) CompactPropertiesMap.of(Collections.singletonMap("b", 1));
+
+        Map<String, Object> changed = compact.with(Collections.singletonMap(null, 2));
+
+        assertInstanceOf(HashMap.class, changed);
+        assertEquals(2, changed.get(null));
+        assertEquals(1, changed.get("b"));
+    }
+
+    @Test
+    void test_action_saved_as_plain_map() {
+        boolean enabled = CompactPropertiesMap.ENABLED;
+        CompactPropertiesMap.ENABLED = true;
+        try {
+            CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+            action.setProperty("int", 42);
+            action.setProperty("string", "text");
+
+            XStream2 xStream = new XStream2();
+            String xml = xStream.toXML(action);
+            assertFalse(xml.contains(CompactPropertiesMap.class.getSimpleName()), xml);
+
+            CustomBuildPropertiesAction read = (CustomBuildPropertiesAction) xStream.fromXML(xml);
+            assertEquals(action.getProperties(), read.getProperties());
+        } finally {
+            CompactPropertiesMap.ENABLED = enabled;
+        }
+    }
+
+    @Test
+    void test_serialized_as_plain_map() throws Exception {
+        Map<String, Object> compact = CompactPropertiesMap.of(createValues());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(compact);
+        }
+        Object read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = in.readObject();
+        }
+        assertInstanceOf(HashMap.class, read);
+        assertEquals(compact, read);
+    }
+
+    @Test
+    void test_mixed_values_across_blocks() {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            String key = String.format("key%02d", i);
+            switch (i % 3) {
+                case 0:
+                    values.put(key, 1000L * i);
+                    break;
+                case 1:
+                    values.put(key, "value" + i);
+                    break;
+                default:
+                    values.put(key, i % 2 == 0 ? 0.5d * i : Boolean.TRUE);
+                    break;
+            }
+        }
+        CompactPropertiesMap compact = (CompactPropertiesMap) CompactPropertiesMap.of(values);
+        assertEquals(values, compact);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            assertEquals(entry.getValue(), compact.get(entry.getKey()), entry.getKey());
+        }
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("key00", "was a number");
+        changes.put("key01", 123456789L);
+        changes.put("key25", null);
+        changes.put("key99", 7);
+        Map<String, Object> expected = new HashMap<>(values);
+        expected.putAll(changes);
+        Map<String, Object> changed = compact.with(changes);
+        assertEquals(expected, changed);
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), changed.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    @Test
+    void test_small_values_shared() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("int", 100);
+        values.put("long", -5L);
+        values.put("boolean", false);
+        Map<String, Object> compact = CompactPropertiesMap.of(values);
+
+        assertSame(Integer.valueOf(100), compact.get("int"));
+        assertSame(Long.valueOf(-5L), compact.get("long"));
+        assertSame(Boolean.FALSE, compact.get("boolean"));
+        assertEquals(values, compact);
+    }
+
+}
@@ -24,24 +24,43 @@
 
 package org.jenkinsci.plugins.custombuildproperties;
 
+import hudson.markup.MarkupFormatter;
+import hudson.util.XStream2;
+import org.jenkinsci.plugins.custombuildproperties.table.CbpTable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CustomBuildPropertiesActionTest {
 
     private static final String SOME_KEY = "SomeKey";
+    private static final String SOME_OTHER_KEY = "SomeOtherKey";
     private static final Object SOME_VALUE = 42;
     private static final Object SOME_OTHER_VALUE = 21;
 
@@ -100,6 +119,157 @@ void test_setPropertyIfAbsent_notOverwritesAlreadySetValue() {
         assertEquals(SOME_VALUE, testedAction.getProperty(SOME_KEY));
     }
 
+    @Test
+    void test_setProperties_getProperty() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(SOME_KEY, SOME_VALUE);
+        values.put(SOME_OTHER_KEY, SOME_OTHER_VALUE);
+        testedAction.setProperties(values);
+        assertEquals(SOME_VALUE, testedAction.getProperty(SOME_KEY));
+        assertEquals(SOME_OTHER_VALUE, testedAction.getProperty(SOME_OTHER_KEY));
+    }
+
+    @Test
+    void test_setProperties_returnsOldValues() {
+        testedAction.setProperty(SOME_KEY, SOME_VALUE);
+        Map<String, Object> oldValues = testedAction.setProperties(Collections.singletonMap(SOME_KEY, SOME_OTHER_VALUE));
+        assertEquals(Collections.singletonMap(SOME_KEY, SOME_VALUE), oldValues);
+        assertEquals(SOME_OTHER_VALUE, testedAction.getProperty(SOME_KEY));
+    }
+
+    @Test
+    void test_setPropertiesIfAbsent_notOverwritesAlreadySetValue() {
+        testedAction.setProperty(SOME_KEY, SOME_VALUE);
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(SOME_KEY, SOME_OTHER_VALUE);
+        values.put(SOME_OTHER_KEY, SOME_OTHER_VALUE);
+        testedAction.setPropertiesIfAbsent(values);
+        assertEquals(SOME_VALUE, testedAction.getProperty(SOME_KEY));
+        assertEquals(SOME_OTHER_VALUE, testedAction.getProperty(SOME_OTHER_KEY));
+    }
+
+    @Test
+    void test_removePropertiesInternal() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("Row_01", 1);
+        values.put("Row_02", 2);
+        values.put("Row_03", 3);
+        values.put(SOME_KEY, SOME_VALUE);
+        testedAction.setProperties(values);
+
+        Map<String, Object> removed = testedAction.removePropertiesInternal(Collections.singletonList("Row_"), Collections.singleton("Row_01"));
+
+        Map<String, Object> expectedRemoved = new LinkedHashMap<>();
+        expectedRemoved.put("Row_02", 2);
+        expectedRemoved.put("Row_03", 3);
+        assertEquals(expectedRemoved, new TreeMap<>(removed));
+        assertTrue(testedAction.containsProperty("Row_01"));
+        assertFalse(testedAction.containsProperty("Row_02"));
+        assertFalse(testedAction.containsProperty("Row_03"));
+        assertEquals(SOME_VALUE, testedAction.getProperty(SOME_KEY));
+    }
+
+    @Test
+    void test_removePropertiesInternal_nothingMatches() {
+        testedAction.setProperty(SOME_KEY, SOME_VALUE);
+        Map<String, Object> before = testedAction.getProperties();
+
+        assertTrue(testedAction.removePropertiesInternal(Collections.singletonList("Row_"), Collections.emptySet()).isEmpty());
+        assertEquals(before, testedAction.getProperties());
+    }
+
+    @Test
+    void test_getViewTables_cached_for_unchanged_snapshot() {
+        testedAction.setProperty(SOME_KEY, SOME_VALUE);
+        MarkupFormatter markupFormatter = new BracketMarkupFormatter();
+
+        List<CbpTable> tables = testedAction.getViewTables(markupFormatter);
+
+        assertSame(tables, testedAction.getViewTables(markupFormatter));
+        assertEquals("[42]", getSingleValue(tables));
+    }
+
+    @Test
+    void test_getViewTables_rebuilt_after_change() {
+        testedAction.setProperty(SOME_KEY, SOME_VALUE);
+        MarkupFormatter markupFormatter = new BracketMarkupFormatter();
+        List<CbpTable> tables = testedAction.getViewTables(markupFormatter);
+
+        testedAction.setProperty(SOME_KEY, SOME_OTHER_VALUE);
+        List<CbpTable> changedTables = testedAction.getViewTables(markupFormatter);
+
+        assertNotSame(tables, changedTables);
+        assertEquals("[42]", getSingleValue(tables));
+        assertEquals("[21]", getSingleValue(changedTables));
+        assertSame(changedTables, testedAction.getViewTables(markupFormatter));
+    }
+
+    @Test
+    void test_getViewTables_rebuilt_for_other_markupFormatter() {
+        testedAction.setProperty(SOME_KEY, SOME_VALUE);
+        List<CbpTable> tables = testedAction.getViewTables(new BracketMarkupFormatter());
+
+        List<CbpTable> otherTables = testedAction.getViewTables(new BracketMarkupFormatter());
+
+        assertNotSame(tables, otherTables);
+        assertEquals("[42]", getSingleValue(otherTables));
+    }
+
+    @Test
+    void test_remoteJson_roundTrip() throws Exception {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("string", "some \"quoted\" <b>text</b>");
+        values.put("int", 42);
+        values.put("long", 42L);
+        values.put("date", new Date(1000000000123L));
+        values.put("null", null);
+        StringWriter writer = new StringWriter();
+        testedAction.writeRemoteJson(writer, values);
+        assertEquals(values, testedAction.fromRemoteJson(RemoteJsonParser.parseObject(writer.toString())));
+    }
+
+    @Test
+    void test_fromRemoteJson_jsonLikeStrings_keptAsSent() {
+        Map<String, Object> values = testedAction.fromRemoteJson(RemoteJsonParser.parseObject(
+                "{\"properties\": [{\"key\": \"array\", \"value\": \"[1]\"}, {\"key\": \"null\", \"value\": \"null\"},"
+                        + " {\"key\": \"object\", \"value\": \"{\\\"a\\\": 1}\"}, {\"key\": \"absent\"}]}"));
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("array", "[1]");
+        expected.put("null", "null");
+        expected.put("object", "{\"a\": 1}");
+        expected.put("absent", null);
+        assertEquals(expected, values);
+    }
+
+    @Test
+    void test_fromRemoteJson_numberValue_keptAsSent() {
+        assertEquals(Collections.singletonMap("k", 42L), testedAction.fromRemoteJson(RemoteJsonParser.parseObject(
+                "{\"properties\": [{\"key\": \"k\", \"value\": 42, \"valueType\": \"java.lang.Long\"}]}")));
+        assertEquals(Collections.singletonMap("k", "1.50"), testedAction.fromRemoteJson(RemoteJsonParser.parseObject(
+                "{\"properties\": [{\"key\": \"k\", \"value\": 1.50}]}")));
+    }
+
+    @Test
+    void test_fromRemoteJson_invalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                testedAction.fromRemoteJson(RemoteJsonParser.parseObject("{\"properties\": {\"key\": \"k\"}}")));
+        assertThrows(IllegalArgumentException.class, () ->
+                testedAction.fromRemoteJson(RemoteJsonParser.parseObject("{\"properties\": [{\"value\": \"v\"}]}")));
+        assertThrows(IllegalArgumentException.class, () ->
+                testedAction.fromRemoteJson(RemoteJsonParser.parseObject("{\"properties\": [{\"key\": \"k\", \"value\": [1]}]}")));
+        assertThrows(IllegalArgumentException.class, () ->
+                testedAction.fromRemoteJson(RemoteJsonParser.parseObject("{\"properties\": [{\"key\": \"k\", \"value\": \"x\", \"valueType\": \"java.lang.Integer\"}]}")));
+    }
+
+    @Test
+    void test_isOnlySetIfAbsent() {
+        assertFalse(CustomBuildPropertiesAction.isOnlySetIfAbsent(RemoteJsonParser.parseObject("{}")));
+        assertTrue(CustomBuildPropertiesAction.isOnlySetIfAbsent(RemoteJsonParser.parseObject("{\"onlySetIfAbsent\": true}")));
+        assertThrows(IllegalArgumentException.class, () ->
+                CustomBuildPropertiesAction.isOnlySetIfAbsent(RemoteJsonParser.parseObject("{\"onlySetIfAbsent\": \"yes\"}")));
+    }
+
     @Test
     void test_parseRemoteValue_true() {
         assertEquals(Boolean.TRUE, testedAction.parseRemoteValue("true", "java.lang.Boolean"));
@@ -184,4 +354,107 @@ void test_parseRemoteValue_date4() {
         }
     }
 
+    @Test
+    void test_getPropertiesWithPrefix() {
+        testedAction.setProperty("perf_b", 2);
+        testedAction.setProperty("perf", 0);
+        testedAction.setProperty("perf_a", 1);
+        testedAction.setProperty("perg", 3);
+        testedAction.setProperty("other", 4);
+        assertEquals("{perf_a=1, perf_b=2}", testedAction.getPropertiesWithPrefix("perf_").toString());
+        assertEquals("{perf=0, perf_a=1, perf_b=2}", testedAction.getPropertiesWithPrefix("perf").toString());
+        assertTrue(testedAction.getPropertiesWithPrefix("x").isEmpty());
+    }
+
+    @Test
+    void test_getPropertiesWithPrefix_followsChanges() {
+        testedAction.setProperty("perf_a", 1);
+        assertEquals("{perf_a=1}", testedAction.getPropertiesWithPrefix("perf_").toString());
+        testedAction.setProperty("perf_b", 2);
+        assertEquals("{perf_a=1, perf_b=2}", testedAction.getPropertiesWithPrefix("perf_").toString());
+    }
+
+    @Test
+    void test_subMap() {
+        testedAction.setProperty("a", 1);
+        testedAction.setProperty("b", 2);
+        testedAction.setProperty("c", 3);
+        assertEquals("{b=2}", testedAction.subMap("b", "c").toString());
+        assertEquals("{a=1, b=2}", testedAction.subMap(null, "c").toString());
+        assertEquals("{b=2, c=3}", testedAction.subMap("az", null).toString());
+        assertTrue(testedAction.subMap("c", "a").isEmpty());
+    }
+
+    private static Map<String, Object> createExportProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("perf_b", 2);
+        properties.put("other", "x");
+        properties.put("perf_a", "a,b");
+        properties.put("perf_c", 3L);
+        return properties;
+    }
+
+    @Test
+    void test_writeExport_json_prefix_and_paging() throws Exception {
+        StringWriter writer = new StringWriter();
+        CustomBuildPropertiesAction.writeExport(writer, SortedKeys.of(createExportProperties()), "perf_", 1, 1, false);
+        assertEquals("{\"total\":3,\"offset\":1,\"properties\":[{\"key\":\"perf_b\",\"value\":\"2\",\"valueType\":\"java.lang.Integer\"}]}",
+                writer.toString());
+    }
+
+    @Test
+    void test_writeExport_json_offset_beyond_end() throws Exception {
+        StringWriter writer = new StringWriter();
+        CustomBuildPropertiesAction.writeExport(writer, SortedKeys.of(createExportProperties()), null, 10, 0, false);
+        assertEquals("{\"total\":4,\"offset\":4,\"properties\":[]}", writer.toString());
+    }
+
+    @Test
+    void test_writeExport_csv() throws Exception {
+        StringWriter writer = new StringWriter();
+        CustomBuildPropertiesAction.writeExport(writer, SortedKeys.of(createExportProperties()), "perf_", 0, 0, true);
+        assertEquals("key,value,valueType\r\n"
+                + "perf_a,\"a,b\",\r\n"
+                + "perf_b,2,java.lang.Integer\r\n"
+                + "perf_c,3,java.lang.Long\r\n", writer.toString());
+    }
+
+    private static String getSingleValue(List<CbpTable> tables) {
+        assertEquals(1, tables.size());
+        CbpTable table = tables.get(0);
+        assertEquals(1, table.getRows().size());
+        return table.getRows().get(0).getCellValue(table.getColumns().get(0));
+    }
+
+    private static final class BracketMarkupFormatter extends MarkupFormatter {
+
+        @Override
+        public void translate(String markup, Writer output) throws IOException {
+            output.write("[" + markup + "]");
+        }
+
+    }
+
+    @Test
+    void test_readProperties_from_build_xml(@TempDir File buildDir) throws IOException {
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        action.setProperty("int", 42);
+        action.setProperty("string", "text");
+        XStream2 xStream = new XStream2();
+        String xml = "<flow-build>\n  <actions>\n    <hudson.model.CauseAction/>\n"
+                + xStream.toXML(action) + "\n  </actions>\n  <number>7</number>\n</flow-build>";
+        Files.write(new File(buildDir, "build.xml").toPath(), xml.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(action.getProperties(), CustomBuildPropertiesAction.readProperties(buildDir, xStream));
+    }
+
+    @Test
+    void test_readProperties_without_action(@TempDir File buildDir) throws IOException {
+        assertNull(CustomBuildPropertiesAction.readProperties(buildDir, new XStream2()));
+
+        String xml = "<flow-build>\n  <actions>\n    <hudson.model.CauseAction/>\n  </actions>\n</flow-build>";
+        Files.write(new File(buildDir, "build.xml").toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        assertNull(CustomBuildPropertiesAction.readProperties(buildDir, new XStream2()));
+    }
+
 }
@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomBuildPropertiesAsyncDeliveryTest {
+
+    private static final String RUN_ID = "job#1";
+    private static final String OTHER_RUN_ID = "job#2";
+
+    private ManualExecutor executor;
+    private CustomBuildPropertiesAsyncDelivery testedDelivery;
+    private List<String> delivered;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ManualExecutor();
+        testedDelivery = new CustomBuildPropertiesAsyncDelivery(executor, 3);
+        delivered = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    void test_events_of_run_delivered_in_order_by_one_task() {
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("a"));
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("b"));
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("c"));
+
+        assertEquals(1, executor.tasks.size());
+        assertEquals(3, testedDelivery.getQueuedCountInternal());
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("a", "b", "c"), delivered);
+        assertEquals(0, testedDelivery.getQueuedCountInternal());
+        assertEquals(3, testedDelivery.getDeliveredCountInternal());
+    }
+
+    @Test
+    void test_runs_delivered_independently() {
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("a"));
+        testedDelivery.enqueueInternal(OTHER_RUN_ID, () -> delivered.add("b"));
+
+        assertEquals(2, executor.tasks.size());
+    }
+
+    @Test
+    void test_failing_event_does_not_stop_later_events() {
+        testedDelivery.enqueueInternal(RUN_ID, () -> {
+            throw new IllegalStateException("expected");
+        });
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("b"));
+
+        executor.runAll();
+
+        assertEquals(Collections.singletonList("b"), delivered);
+        assertEquals(0, testedDelivery.getQueuedCountInternal());
+    }
+
+    @Test
+    void test_event_after_drained_queue_scheduled_again() {
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("a"));
+        executor.runAll();
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("b"));
+
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(Arrays.asList("a", "b"), delivered);
+    }
+
+    @Test
+    void test_full_queue_blocks_writer_until_delivered() throws Exception {
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("a"));
+        testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("b"));
+
+        // room for one event, but the change has two async listeners
+        Thread writer = new Thread(() -> testedDelivery.enqueueInternal(RUN_ID, null,
+                Arrays.asList(() -> delivered.add("c1"), () -> delivered.add("c2"))));
+        writer.start();
+        try {
+            awaitThrottled(1);
+            assertEquals(2, testedDelivery.getQueuedCountInternal());
+
+            executor.runAll();
+        } finally {
+            writer.join();
+        }
+        executor.runAll();
+
+        assertEquals(Arrays.asList("a", "b", "c1", "c2"), delivered);
+        assertEquals(0, testedDelivery.getOverflowCountInternal());
+        assertEquals(0, testedDelivery.getQueuedCountInternal());
+    }
+
+    @Test
+    void test_writer_holding_run_lock_does_not_wait() {
+        Object runLock = new Object();
+        for (int i = 0; i < 3; i++) {
+            testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("queued"));
+        }
+        synchronized (runLock) {
+            testedDelivery.enqueueInternal(RUN_ID, runLock, Collections.singletonList(() -> delivered.add("overflow")));
+        }
+
+        assertEquals(4, testedDelivery.getQueuedCountInternal());
+        assertEquals(1, testedDelivery.getOverflowCountInternal());
+        assertEquals(0, testedDelivery.getThrottledCountInternal());
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("queued", "queued", "queued", "overflow"), delivered);
+        // events queued beyond the limit do not free room for others
+        for (int i = 0; i < 3; i++) {
+            testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("queued"));
+        }
+        assertEquals(0, testedDelivery.getThrottledCountInternal());
+    }
+
+    @Test
+    void test_listener_writing_while_delivering_does_not_wait() {
+        testedDelivery.enqueueInternal(RUN_ID, () -> {
+            delivered.add("writing");
+            testedDelivery.enqueueInternal(OTHER_RUN_ID, () -> delivered.add("written"));
+        });
+        for (int i = 0; i < 2; i++) {
+            testedDelivery.enqueueInternal(RUN_ID, () -> delivered.add("queued"));
+        }
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("writing", "queued", "queued", "written"), delivered);
+        assertEquals(1, testedDelivery.getOverflowCountInternal());
+    }
+
+    @Test
+    void test_change_larger_than_queue_not_dropped() {
+        testedDelivery.enqueueInternal(RUN_ID, null, Arrays.asList(() -> delivered.add("a"), () -> delivered.add("b"),
+                () -> delivered.add("c"), () -> delivered.add("d")));
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), delivered);
+        assertEquals(4, testedDelivery.getOverflowCountInternal());
+    }
+
+    private void awaitThrottled(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (testedDelivery.getThrottledCountInternal() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "writer did not wait");
+            Thread.sleep(10L);
+        }
+    }
+
+    /**
+     * Runs the scheduled tasks only when asked to.
+     */
+    private static final class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = poll()) != null) {
+                task.run();
+            }
+        }
+
+        private synchronized Runnable poll() {
+            return tasks.poll();
+        }
+
+    }
+
+}
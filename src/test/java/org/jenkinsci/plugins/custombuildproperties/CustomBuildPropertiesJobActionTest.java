@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomBuildPropertiesJobActionTest {
+
+    private static Map<String, NavigableMap<Integer, Object>> createSeries() {
+        NavigableMap<Integer, Object> count = new TreeMap<>(Collections.reverseOrder());
+        count.put(3, 30);
+        count.put(2, 20);
+        count.put(1, 10);
+        NavigableMap<Integer, Object> label = new TreeMap<>(Collections.reverseOrder());
+        label.put(4, "a,\"b\"");
+        label.put(2, "c");
+
+        Map<String, NavigableMap<Integer, Object>> seriesByKey = new LinkedHashMap<>();
+        seriesByKey.put("count", count);
+        seriesByKey.put("label", label);
+        return seriesByKey;
+    }
+
+    @Test
+    void test_getBuildNumbers() {
+        Map<String, NavigableMap<Integer, Object>> seriesByKey = createSeries();
+        assertEquals(Arrays.asList(4, 3, 2, 1), CustomBuildPropertiesJobAction.getBuildNumbers(seriesByKey.values(), Integer.MAX_VALUE));
+        assertEquals(Arrays.asList(4, 3), CustomBuildPropertiesJobAction.getBuildNumbers(seriesByKey.values(), 2));
+    }
+
+    @Test
+    void test_writeJson() throws Exception {
+        Map<String, NavigableMap<Integer, Object>> seriesByKey = createSeries();
+        List<Integer> buildNumbers = Arrays.asList(4, 3);
+        StringWriter writer = new StringWriter();
+        CustomBuildPropertiesJobAction.writeJson(writer, seriesByKey, buildNumbers);
+        assertEquals("{\"builds\":["
+                + "{\"number\":4,\"properties\":[{\"key\":\"label\",\"value\":\"a,\\\"b\\\"\"}]},"
+                + "{\"number\":3,\"properties\":[{\"key\":\"count\",\"value\":\"30\",\"valueType\":\"java.lang.Integer\"}]}"
+                + "]}", writer.toString());
+    }
+
+    @Test
+    void test_writeCsv() throws Exception {
+        Map<String, NavigableMap<Integer, Object>> seriesByKey = createSeries();
+        List<Integer> buildNumbers = Arrays.asList(4, 3, 2);
+        StringWriter writer = new StringWriter();
+        CustomBuildPropertiesJobAction.writeCsv(writer, seriesByKey, buildNumbers);
+        assertEquals("build,count,label\r\n"
+                + "4,,\"a,\"\"b\"\"\"\r\n"
+                + "3,30,\r\n"
+                + "2,20,c\r\n", writer.toString());
+    }
+
+}
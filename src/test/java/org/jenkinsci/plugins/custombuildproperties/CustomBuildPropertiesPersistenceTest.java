@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomBuildPropertiesPersistenceTest {
+
+    private List<Runnable> scheduledTasks;
+    private List<String> flushedRunIds;
+    private CustomBuildPropertiesPersistence.DirtyRuns testedDirtyRuns;
+
+    @BeforeEach
+    void setUp() {
+        scheduledTasks = new ArrayList<>();
+        flushedRunIds = new ArrayList<>();
+        testedDirtyRuns = new CustomBuildPropertiesPersistence.DirtyRuns(scheduledTasks::add, flushedRunIds::add);
+    }
+
+    private void runScheduledTasks() {
+        List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+        scheduledTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void test_changes_coalesced_into_single_save() {
+        testedDirtyRuns.add("a#1");
+        testedDirtyRuns.add("a#1");
+        testedDirtyRuns.add("b#1");
+        testedDirtyRuns.add("a#1");
+
+        assertEquals(1, scheduledTasks.size());
+        assertTrue(flushedRunIds.isEmpty());
+
+        runScheduledTasks();
+
+        assertEquals(Arrays.asList("a#1", "b#1"), sorted(flushedRunIds));
+        assertEquals(0, testedDirtyRuns.size());
+    }
+
+    @Test
+    void test_scheduled_again_after_flush() {
+        testedDirtyRuns.add("a#1");
+        runScheduledTasks();
+        testedDirtyRuns.add("a#1");
+
+        assertEquals(1, scheduledTasks.size());
+        runScheduledTasks();
+        assertEquals(Arrays.asList("a#1", "a#1"), flushedRunIds);
+    }
+
+    @Test
+    void test_flushed_on_completion_not_saved_again() {
+        testedDirtyRuns.add("a#1");
+        testedDirtyRuns.add("b#1");
+
+        // like RunListenerImpl.onFinalized, which saves the run itself
+        assertTrue(testedDirtyRuns.remove("a#1"));
+        assertFalse(testedDirtyRuns.remove("a#1"));
+
+        runScheduledTasks();
+        assertEquals(Collections.singletonList("b#1"), flushedRunIds);
+    }
+
+    @Test
+    void test_flushAll_on_shutdown_without_waiting_for_delay() {
+        testedDirtyRuns.add("a#1");
+        testedDirtyRuns.add("b#1");
+
+        // like flushOnShutdown
+        testedDirtyRuns.flushAll();
+        assertEquals(Arrays.asList("a#1", "b#1"), sorted(flushedRunIds));
+
+        // the pending delayed flush has nothing left to save
+        runScheduledTasks();
+        assertEquals(2, flushedRunIds.size());
+    }
+
+    @Test
+    void test_failing_save_does_not_stop_flush() {
+        List<String> saved = new ArrayList<>();
+        CustomBuildPropertiesPersistence.DirtyRuns dirtyRuns = new CustomBuildPropertiesPersistence.DirtyRuns(scheduledTasks::add, runId -> {
+            if (runId.equals("a#1")) {
+                throw new IllegalStateException("expected");
+            }
+            saved.add(runId);
+        });
+        dirtyRuns.add("a#1");
+        dirtyRuns.add("b#1");
+
+        dirtyRuns.flushAll();
+
+        assertEquals(Collections.singletonList("b#1"), saved);
+        assertEquals(0, dirtyRuns.size());
+    }
+
+    private static List<String> sorted(List<String> runIds) {
+        List<String> result = new ArrayList<>(runIds);
+        Collections.sort(result);
+        return result;
+    }
+
+}
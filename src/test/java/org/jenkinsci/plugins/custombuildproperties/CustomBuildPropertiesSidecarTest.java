@@ -0,0 +1,219 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.model.Run;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomBuildPropertiesSidecarTest {
+
+    @TempDir
+    File tempDir;
+
+    private static Map<String, Object> createValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("int", 42);
+        values.put("bigDecimal", new BigDecimal("1.50"));
+        values.put("string", "some \"quoted\"\nvalue");
+        values.put("jsonLike", "{\"a\": [1, 2]}");
+        values.put("date", new Date(1234567890L));
+        values.put("localDate", LocalDate.of(2026, 10, 17));
+        values.put("null", null);
+        return values;
+    }
+
+    @Test
+    void test_line_round_trip() {
+        Map<String, Object> values = createValues();
+        Map<String, Object> read = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            StringBuilder sb = new StringBuilder();
+            CustomBuildPropertiesSidecar.appendLine(sb, 17L, entry.getKey(), entry.getValue());
+            assertEquals(1, sb.toString().split("\n").length);
+            assertEquals(17L, CustomBuildPropertiesSidecar.readLine(sb.toString().trim(), read));
+        }
+        assertEquals(values, read);
+    }
+
+    @Test
+    void test_write_append_load() throws Exception {
+        File file = new File(tempDir, CustomBuildPropertiesSidecar.FILE_NAME);
+        Map<String, Object> values = createValues();
+
+        CustomBuildPropertiesSidecar.write(file, values, 1L);
+        CustomBuildPropertiesSidecar.append(file, Collections.singletonMap("int", 43), 2L);
+        values.put("int", 43);
+
+        CustomBuildPropertiesSidecar.Content content = CustomBuildPropertiesSidecar.load(file);
+        assertEquals(values, content.getProperties());
+        assertEquals(2L, content.getSequence());
+        assertEquals(values.size() + 1, content.getLineCount());
+    }
+
+    @Test
+    void test_read_batches() throws Exception {
+        File file = new File(tempDir, CustomBuildPropertiesSidecar.FILE_NAME);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("a", 1);
+        changes.put("b", 2);
+        CustomBuildPropertiesSidecar.append(file, changes, 1L);
+        CustomBuildPropertiesSidecar.append(file, Collections.singletonMap("a", 3), 2L);
+
+        List<CustomBuildPropertiesSidecar.Batch> batches = CustomBuildPropertiesSidecar.readBatches(file);
+        assertEquals(2, batches.size());
+        assertEquals(1L, batches.get(0).getSequence());
+        assertEquals(changes, batches.get(0).getValues());
+        assertEquals(2L, batches.get(1).getSequence());
+        assertEquals(Collections.singletonMap("a", 3), batches.get(1).getValues());
+    }
+
+    @Test
+    void test_replay_fires_changes_in_sequence_order() throws Exception {
+        File file = new File(tempDir, CustomBuildPropertiesSidecar.FILE_NAME);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("a", 1);
+        changes.put("b", 2);
+        CustomBuildPropertiesSidecar.append(file, changes, 1L);
+        CustomBuildPropertiesSidecar.append(file, Collections.singletonMap("a", 3), 2L);
+        CustomBuildPropertiesSidecar.append(file, Collections.singletonMap("b", CustomBuildPropertiesSidecar.REMOVED), 3L);
+
+        List<Map<String, CustomBuildPropertiesListener.Change>> fired = new ArrayList<>();
+        CustomBuildPropertiesListener listener = new CustomBuildPropertiesListener() {
+            @Override
+            public void onCustomBuildPropertiesChanged(Run run, Map<String, Change> changes) {
+                fired.add(changes);
+            }
+        };
+        assertEquals(3L, CustomBuildPropertiesSidecar.replay(file, -1L, null, listener));
+        assertEquals(3, fired.size());
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(fired.get(0).keySet()));
+        assertNull(fired.get(0).get("a").getOldValue());
+        assertEquals(1, fired.get(0).get("a").getNewValue());
+        assertEquals(1, fired.get(1).get("a").getOldValue());
+        assertEquals(3, fired.get(1).get("a").getNewValue());
+        assertEquals(2, fired.get(2).get("b").getOldValue());
+        assertNull(fired.get(2).get("b").getNewValue());
+        assertTrue(fired.get(2).get("b").isRemoved());
+
+        // only later changes, with old values from the earlier ones
+        fired.clear();
+        assertEquals(3L, CustomBuildPropertiesSidecar.replay(file, 1L, null, listener));
+        assertEquals(2, fired.size());
+        assertEquals(1, fired.get(0).get("a").getOldValue());
+        assertTrue(fired.get(1).get("b").isRemoved());
+
+        fired.clear();
+        assertEquals(3L, CustomBuildPropertiesSidecar.replay(file, 3L, null, listener));
+        assertEquals(Collections.emptyList(), fired);
+    }
+
+    @Test
+    void test_append_removed() throws Exception {
+        File file = new File(tempDir, CustomBuildPropertiesSidecar.FILE_NAME);
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("a", 1);
+        values.put("b", 2);
+        CustomBuildPropertiesSidecar.write(file, values, 1L);
+        CustomBuildPropertiesSidecar.append(file, Collections.singletonMap("a", CustomBuildPropertiesSidecar.REMOVED), 2L);
+
+        CustomBuildPropertiesSidecar.Content content = CustomBuildPropertiesSidecar.load(file);
+        assertEquals(Collections.singletonMap("b", 2), content.getProperties());
+        assertEquals(2L, content.getSequence());
+
+        List<CustomBuildPropertiesSidecar.Batch> batches = CustomBuildPropertiesSidecar.readBatches(file);
+        assertSame(CustomBuildPropertiesSidecar.REMOVED, batches.get(1).getValues().get("a"));
+    }
+
+    @Test
+    void test_removed_differs_from_null() {
+        Map<String, Object> read = new LinkedHashMap<>();
+        StringBuilder sb = new StringBuilder();
+        CustomBuildPropertiesSidecar.appendLine(sb, 1L, "removed", CustomBuildPropertiesSidecar.REMOVED);
+        CustomBuildPropertiesSidecar.appendLine(sb, 1L, "null", null);
+        for (String line : sb.toString().split("\n")) {
+            CustomBuildPropertiesSidecar.readLine(line, read);
+        }
+        assertSame(CustomBuildPropertiesSidecar.REMOVED, read.get("removed"));
+        assertTrue(read.containsKey("null"));
+        assertNull(read.get("null"));
+    }
+
+    @Test
+    void test_line_without_sequence() {
+        Map<String, Object> read = new LinkedHashMap<>();
+        assertEquals(0L, CustomBuildPropertiesSidecar.readLine("{\"key\":\"k\",\"value\":\"v\"}", read));
+        assertEquals(Collections.singletonMap("k", "v"), read);
+    }
+
+    @Test
+    void test_load_skips_truncated_line() throws Exception {
+        File file = new File(tempDir, CustomBuildPropertiesSidecar.FILE_NAME);
+        CustomBuildPropertiesSidecar.write(file, Collections.singletonMap("int", 42), 1L);
+        Files.write(file.toPath(), "{\"seq\":2,\"key\":\"int\",\"val".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals(Collections.singletonMap("int", 42), CustomBuildPropertiesSidecar.load(file).getProperties());
+    }
+
+    @Test
+    void test_append_after_truncated_line() throws Exception {
+        File file = new File(tempDir, CustomBuildPropertiesSidecar.FILE_NAME);
+        CustomBuildPropertiesSidecar.write(file, Collections.singletonMap("int", 42), 1L);
+        Files.write(file.toPath(), "{\"seq\":2,\"key\":\"int\",\"val".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        CustomBuildPropertiesSidecar.append(file, Collections.singletonMap("other", 7), 3L);
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("int", 42);
+        expected.put("other", 7);
+        CustomBuildPropertiesSidecar.Content content = CustomBuildPropertiesSidecar.load(file);
+        assertEquals(expected, content.getProperties());
+        assertEquals(3L, content.getSequence());
+    }
+
+    @Test
+    void test_load_missing_file() throws Exception {
+        assertTrue(CustomBuildPropertiesSidecar.load(new File(tempDir, "missing.json")).getProperties().isEmpty());
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomBuildPropertyConditionTest {
+
+    private static final String SOME_KEY = "SomeKey";
+
+    @Test
+    void test_equals_string() {
+        CustomBuildPropertyCondition condition = new CustomBuildPropertyCondition(SOME_KEY, CustomBuildPropertyCondition.Type.EQUALS, "done");
+        assertTrue(condition.testValue("done"));
+        assertTrue(condition.testValue(new StringBuilder("done")));
+        assertFalse(condition.testValue("running"));
+        assertFalse(condition.testValue(null));
+    }
+
+    @Test
+    void test_equals_numbers() {
+        CustomBuildPropertyCondition condition = new CustomBuildPropertyCondition(SOME_KEY, CustomBuildPropertyCondition.Type.EQUALS, 42);
+        assertTrue(condition.testValue(42));
+        assertTrue(condition.testValue(42L));
+        assertTrue(condition.testValue(42.0d));
+        assertFalse(condition.testValue(43));
+        assertFalse(condition.testValue("42"));
+    }
+
+    @Test
+    void test_matches() {
+        CustomBuildPropertyCondition condition = new CustomBuildPropertyCondition(SOME_KEY, CustomBuildPropertyCondition.Type.MATCHES, "v\\d+\\..*");
+        assertTrue(condition.testValue("v1.2"));
+        assertFalse(condition.testValue("1.2"));
+        assertFalse(condition.testValue(null));
+    }
+
+    @Test
+    void test_greaterThan() {
+        CustomBuildPropertyCondition condition = new CustomBuildPropertyCondition(SOME_KEY, CustomBuildPropertyCondition.Type.GREATER_THAN, 80);
+        assertTrue(condition.testValue(81));
+        assertTrue(condition.testValue(80.5d));
+        assertTrue(condition.testValue(BigInteger.valueOf(100)));
+        assertTrue(condition.testValue("90"));
+        assertFalse(condition.testValue(80));
+        assertFalse(condition.testValue("foo"));
+        assertFalse(condition.testValue(null));
+    }
+
+    @Test
+    void test_greaterThan_notANumber() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new CustomBuildPropertyCondition(SOME_KEY, CustomBuildPropertyCondition.Type.GREATER_THAN, "foo"));
+    }
+
+    @Test
+    void test_action() {
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        CustomBuildPropertyCondition condition = new CustomBuildPropertyCondition(SOME_KEY, CustomBuildPropertyCondition.Type.EQUALS, null);
+        assertFalse(condition.test(action));
+        action.setProperty(SOME_KEY, null);
+        assertTrue(condition.test(action));
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FindBuildsByCustomBuildPropertyStepTest {
+
+    private static final List<String> RUN_IDS = Arrays.asList("a#10", "a#9", "folder/b#3", "secret#7", "secret#2");
+
+    private static List<String> toRunIds(List<Map<String, Object>> builds) {
+        return builds.stream().map(build -> build.get("job") + "#" + build.get("number")).collect(Collectors.toList());
+    }
+
+    @Test
+    void test_all_readable() {
+        assertEquals(RUN_IDS, toRunIds(FindBuildsByCustomBuildPropertyStep.find(RUN_IDS, null, 0, job -> true)));
+    }
+
+    @Test
+    void test_job_filter() {
+        assertEquals(Collections.singletonList("folder/b#3"),
+                toRunIds(FindBuildsByCustomBuildPropertyStep.find(RUN_IDS, "folder/b", 0, job -> true)));
+        assertEquals(Collections.emptyList(),
+                toRunIds(FindBuildsByCustomBuildPropertyStep.find(RUN_IDS, "folder", 0, job -> true)));
+    }
+
+    @Test
+    void test_limit() {
+        assertEquals(Arrays.asList("a#10", "a#9"),
+                toRunIds(FindBuildsByCustomBuildPropertyStep.find(RUN_IDS, null, 2, job -> true)));
+    }
+
+    @Test
+    void test_unreadable_jobs_skipped_and_not_counted() {
+        List<String> checkedJobs = new ArrayList<>();
+        List<Map<String, Object>> builds = FindBuildsByCustomBuildPropertyStep.find(RUN_IDS, null, 0, job -> {
+            checkedJobs.add(job);
+            return !job.equals("a");
+        });
+        assertEquals(Arrays.asList("folder/b#3", "secret#7", "secret#2"), toRunIds(builds));
+        // readability is checked once per job
+        assertEquals(Arrays.asList("a", "folder/b", "secret"), checkedJobs);
+
+        assertEquals(Collections.singletonList("folder/b#3"),
+                toRunIds(FindBuildsByCustomBuildPropertyStep.find(RUN_IDS, null, 1, job -> !job.equals("a"))));
+    }
+
+    @Test
+    void test_number_parsed() {
+        Map<String, Object> build = FindBuildsByCustomBuildPropertyStep.find(Collections.singletonList("x#y#12"), null, 0, job -> true).get(0);
+        assertEquals("x#y", build.get("job"));
+        assertEquals(12, build.get("number"));
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.jenkinsci.plugins.custombuildproperties.GetCustomBuildPropertyStep.NOT_FOUND;
+import static org.jenkinsci.plugins.custombuildproperties.GetCustomBuildPropertyStep.STOP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GetCustomBuildPropertyStepTest {
+
+    private static final int CURRENT = 10;
+
+    /**
+     * Builds 7, 8, 4, 3 and 1 were deleted, only 6 and 2 set the key.
+     */
+    private static final int[] EXISTING_BUILDS = {9, 6, 5, 2};
+    private static final int[] INDEXED_BUILDS = {6, 2};
+
+    private static final Map<Integer, Object> VALUES = new HashMap<>();
+
+    static {
+        VALUES.put(6, "six");
+        VALUES.put(2, "two");
+    }
+
+    @Test
+    void test_maxBuilds_same_with_and_without_index_when_builds_deleted() {
+        for (int maxBuilds = 0; maxBuilds <= CURRENT; maxBuilds++) {
+            Object expected = maxBuilds == 0 || maxBuilds >= 4 ? "six" : NOT_FOUND;
+            assertSame(expected, walk(EXISTING_BUILDS, maxBuilds), "fallback, maxBuilds " + maxBuilds);
+            assertSame(expected, walk(INDEXED_BUILDS, maxBuilds), "index, maxBuilds " + maxBuilds);
+        }
+    }
+
+    @Test
+    void test_maxBuilds_counts_deleted_builds() {
+        assertSame(NOT_FOUND, walk(new int[]{9, 5}, 4));
+        assertSame(NOT_FOUND, walk(new int[]{2}, 7));
+        assertEquals("two", walk(new int[]{2}, 8));
+    }
+
+    @Test
+    void test_stop() {
+        assertSame(NOT_FOUND, GetCustomBuildPropertyStep.walk(CURRENT, 0, Integer::intValue, previous(EXISTING_BUILDS),
+                build -> build == 6 ? STOP : VALUES.getOrDefault(build, NOT_FOUND)));
+    }
+
+    private static Object walk(int[] builds, int maxBuilds) {
+        return GetCustomBuildPropertyStep.walk(CURRENT, maxBuilds, Integer::intValue, previous(builds),
+                build -> VALUES.getOrDefault(build, NOT_FOUND));
+    }
+
+    /**
+     * @param builds the existing build numbers, descending
+     */
+    private static UnaryOperator<Integer> previous(int[] builds) {
+        return build -> Arrays.stream(builds).filter(number -> number < build).boxed().findFirst().orElse(null);
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import hudson.tasks.junit.TestResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class JUnitCounterTest {
+
+    private static final String REPORT = ""
+            + "<testsuites>\n"
+            + "  <testsuite name=\"com.example.FooTest\" tests=\"3\" failures=\"1\" skipped=\"1\">\n"
+            + "    <testcase classname=\"com.example.FooTest\" name=\"passes\" time=\"1.0\"/>\n"
+            + "    <testcase classname=\"com.example.FooTest\" name=\"fails\" time=\"2.0\"><failure message=\"boom\">trace</failure></testcase>\n"
+            + "    <testcase classname=\"com.example.FooTest\" name=\"skipped\" time=\"0\"><skipped/></testcase>\n"
+            + "  </testsuite>\n"
+            + "  <testsuite name=\"com.example.BarTest\" tests=\"2\">\n"
+            + "    <testcase classname=\"com.example.BarTest\" name=\"first\" time=\"0.25\"/>\n"
+            + "    <testcase classname=\"com.example.BarTest\" name=\"second\" time=\"0.75\"/>\n"
+            + "  </testsuite>\n"
+            + "  <testsuite name=\"org.other.BazTest\" tests=\"1\">\n"
+            + "    <testcase classname=\"org.other.BazTest\" name=\"slow\" time=\"4.0\"/>\n"
+            + "  </testsuite>\n"
+            + "</testsuites>\n";
+
+    @TempDir
+    File tempDir;
+
+    private TestResult testResult;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        File reportFile = new File(tempDir, "TEST-report.xml");
+        Files.write(reportFile.toPath(), REPORT.getBytes(StandardCharsets.UTF_8));
+        testResult = new TestResult();
+        testResult.parse(reportFile, null);
+        testResult.tally();
+    }
+
+    @Test
+    void test_counts_all_classes() {
+        Map<String, Object> values = JUnitCounter.count(testResult, Collections.singletonList(new JUnitCounter.Bucket("all", null, null, true, 0)));
+
+        assertEquals(4, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_PASSED_COUNT));
+        assertEquals(1, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_FAILED_COUNT));
+        // no build is attached to the fixture, so previous results are unknown
+        assertEquals(0, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_FAILED_AGE));
+        assertEquals(1, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_SKIPPED_COUNT));
+        assertEquals(8.0d, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_DURATION));
+        assertEquals(4.0d, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_MAX_DURATION));
+    }
+
+    @Test
+    void test_buckets_match_fully_qualified_class_name() {
+        List<JUnitCounter.Bucket> buckets = Arrays.asList(
+                new JUnitCounter.Bucket("example", "com\\.example\\..*", null, true, 0),
+                new JUnitCounter.Bucket("notBar", null, ".*\\.BarTest"));
+
+        Map<String, Object> values = JUnitCounter.count(testResult, buckets);
+
+        assertEquals(3, values.get("example" + SetJUnitCountStep.CBP_SUFFIX_PASSED_COUNT));
+        assertEquals(1, values.get("example" + SetJUnitCountStep.CBP_SUFFIX_FAILED_COUNT));
+        assertEquals(1, values.get("example" + SetJUnitCountStep.CBP_SUFFIX_SKIPPED_COUNT));
+        assertEquals(4.0d, values.get("example" + SetJUnitCountStep.CBP_SUFFIX_DURATION));
+        assertEquals(2.0d, values.get("example" + SetJUnitCountStep.CBP_SUFFIX_MAX_DURATION));
+
+        assertEquals(2, values.get("notBar" + SetJUnitCountStep.CBP_SUFFIX_PASSED_COUNT));
+        assertEquals(1, values.get("notBar" + SetJUnitCountStep.CBP_SUFFIX_FAILED_COUNT));
+        // without extended metrics
+        assertFalse(values.containsKey("notBar" + SetJUnitCountStep.CBP_SUFFIX_SKIPPED_COUNT));
+        assertFalse(values.containsKey("notBar" + SetJUnitCountStep.CBP_SUFFIX_DURATION));
+    }
+
+    @Test
+    void test_slowest_classes_table() {
+        Map<String, Object> values = JUnitCounter.count(testResult, Collections.singletonList(new JUnitCounter.Bucket("all", null, null, false, 2)));
+
+        String rowPrefix = "all" + SetJUnitCountStep.CBP_SUFFIX_SLOWEST_CLASS + "_";
+        assertEquals("org.other.BazTest", values.get(rowPrefix + "01_Class"));
+        assertEquals(4.0d, values.get(rowPrefix + "01_Duration"));
+        assertEquals("com.example.FooTest", values.get(rowPrefix + "02_Class"));
+        assertEquals(3.0d, values.get(rowPrefix + "02_Duration"));
+        assertFalse(values.containsKey(rowPrefix + "03_Class"));
+
+        Object tableRegex = values.get(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "all" + SetJUnitCountStep.CBP_SUFFIX_SLOWEST_CLASSES);
+        assertEquals(Pattern.quote(rowPrefix) + "(\\d+)_(Class|Duration)", tableRegex);
+    }
+
+    @Test
+    void test_no_test_result() {
+        Map<String, Object> values = JUnitCounter.count((TestResult) null, Collections.singletonList(new JUnitCounter.Bucket("all", null, null, true, 3)));
+
+        assertEquals(0, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_PASSED_COUNT));
+        assertEquals(0, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_SKIPPED_COUNT));
+        assertEquals(0.0d, values.get("all" + SetJUnitCountStep.CBP_SUFFIX_DURATION));
+        assertFalse(values.containsKey("all" + SetJUnitCountStep.CBP_SUFFIX_SLOWEST_CLASS + "_01_Class"));
+    }
+
+    @Test
+    void test_replaced_key_prefixes() {
+        List<JUnitCounter.Bucket> buckets = Arrays.asList(
+                new JUnitCounter.Bucket("a", null, null, false, 5),
+                new JUnitCounter.Bucket("b", null, null));
+
+        assertEquals(Collections.singletonList("a" + SetJUnitCountStep.CBP_SUFFIX_SLOWEST_CLASS + "_"), JUnitCounter.getReplacedKeyPrefixes(buckets));
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PatternCacheTest {
+
+    private int originalMaxSize;
+
+    @BeforeEach
+    void setUp() {
+        originalMaxSize = PatternCache.MAX_SIZE;
+        PatternCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        PatternCache.MAX_SIZE = originalMaxSize;
+        PatternCache.clear();
+    }
+
+    @Test
+    void test_hit_and_miss() {
+        Pattern pattern = PatternCache.compile("a.*");
+        assertSame(pattern, PatternCache.compile("a.*"));
+        assertEquals(1, PatternCache.getMissCount());
+        assertEquals(1, PatternCache.getHitCount());
+        assertEquals(1, PatternCache.getSize());
+    }
+
+    @Test
+    void test_evicts_least_recently_used() {
+        PatternCache.MAX_SIZE = 2;
+        Pattern a = PatternCache.compile("a");
+        Pattern b = PatternCache.compile("b");
+        PatternCache.compile("a");
+        PatternCache.compile("c");
+        assertEquals(2, PatternCache.getSize());
+        assertSame(a, PatternCache.compile("a"));
+        assertNotSame(b, PatternCache.compile("b"));
+    }
+
+    @Test
+    void test_invalid_not_cached() {
+        assertThrows(PatternSyntaxException.class, () -> PatternCache.compile("("));
+        assertEquals(0, PatternCache.getSize());
+    }
+
+}
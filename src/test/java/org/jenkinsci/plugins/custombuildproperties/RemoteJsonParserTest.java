@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RemoteJsonParserTest {
+
+    @Test
+    void test_parseObject_values() {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("string", "a\"b\\c/\n\u00e4");
+        expected.put("number", "-1.5e3");
+        expected.put("true", Boolean.TRUE);
+        expected.put("false", Boolean.FALSE);
+        expected.put("null", null);
+        expected.put("array", Arrays.asList("1", Collections.emptyMap()));
+
+        assertEquals(expected, RemoteJsonParser.parseObject(
+                " {\"string\": \"a\\\"b\\\\c\\/\\n\\u00e4\", \"number\": -1.5e3, \"true\": true, \"false\": false,"
+                        + " \"null\": null, \"array\": [1, {}]}\n"));
+    }
+
+    @Test
+    void test_parseObject_jsonLikeString_keptAsSent() {
+        assertEquals(Collections.singletonMap("value", "[1]"), RemoteJsonParser.parseObject("{\"value\": \"[1]\"}"));
+        assertEquals(Collections.singletonMap("value", "null"), RemoteJsonParser.parseObject("{\"value\": \"null\"}"));
+    }
+
+    @Test
+    void test_parseObject_malformed() {
+        for (String json : Arrays.asList("", "[]", "{", "{\"a\": 1", "{\"a\" 1}", "{a: 1}", "{\"a\": 1,}", "{\"a\": 01}",
+                "{\"a\": tru}", "{\"a\": \"unterminated}", "{\"a\": \"\\x\"}", "{\"a\": \"\\u12g4\"}", "{\"a\": 1} x",
+                "{\"a\": 1, \"a\": 2}", "{\"a\": \"line\nbreak\"}")) {
+            assertThrows(IllegalArgumentException.class, () -> RemoteJsonParser.parseObject(json), json);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WaitForCustomBuildPropertiesDispatcherTest {
+
+    private static final String RUN_ID = "folder/job#1";
+    private static final String OTHER_RUN_ID = "other#1";
+
+    private WaitForCustomBuildPropertiesDispatcher testedDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        testedDispatcher = new WaitForCustomBuildPropertiesDispatcher();
+    }
+
+    @Test
+    void test_changed_only_wakes_waiters_of_key() {
+        CountingWaiter waiterA = new CountingWaiter();
+        CountingWaiter waiterB = new CountingWaiter();
+        testedDispatcher.register(RUN_ID, Collections.singletonList("a"), waiterA);
+        testedDispatcher.register(RUN_ID, Collections.singletonList("b"), waiterB);
+
+        testedDispatcher.dispatchChanged(RUN_ID, Collections.singletonList("a"));
+
+        assertEquals(1, waiterA.changed);
+        assertEquals(0, waiterB.changed);
+    }
+
+    @Test
+    void test_changed_only_wakes_waiters_of_run() {
+        CountingWaiter waiter = new CountingWaiter();
+        testedDispatcher.register(RUN_ID, Collections.singletonList("a"), waiter);
+
+        testedDispatcher.dispatchChanged(OTHER_RUN_ID, Collections.singletonList("a"));
+
+        assertEquals(0, waiter.changed);
+    }
+
+    @Test
+    void test_changed_wakes_once_per_write() {
+        CountingWaiter waiter = new CountingWaiter();
+        testedDispatcher.register(RUN_ID, Arrays.asList("a", "b"), waiter);
+
+        testedDispatcher.dispatchChanged(RUN_ID, Arrays.asList("a", "b", "c"));
+
+        assertEquals(1, waiter.changed);
+    }
+
+    @Test
+    void test_unregistered_not_woken() {
+        CountingWaiter waiter = new CountingWaiter();
+        testedDispatcher.register(RUN_ID, Arrays.asList("a", "b"), waiter);
+        testedDispatcher.unregister(RUN_ID, Arrays.asList("a", "b"), waiter);
+
+        testedDispatcher.dispatchChanged(RUN_ID, Arrays.asList("a", "b"));
+        testedDispatcher.dispatchCompleted(RUN_ID);
+
+        assertEquals(0, waiter.changed);
+        assertEquals(0, waiter.completed);
+    }
+
+    @Test
+    void test_completed_wakes_all_waiters_of_run_once() {
+        CountingWaiter waiter = new CountingWaiter();
+        CountingWaiter otherWaiter = new CountingWaiter();
+        testedDispatcher.register(RUN_ID, Arrays.asList("a", "b"), waiter);
+        testedDispatcher.register(OTHER_RUN_ID, Collections.singletonList("a"), otherWaiter);
+
+        testedDispatcher.dispatchCompleted(RUN_ID);
+
+        assertEquals(1, waiter.completed);
+        assertEquals(0, waiter.changed);
+        assertEquals(0, otherWaiter.completed);
+    }
+
+    @Test
+    void test_register_again_after_resume() {
+        // after resume an execution registers again with the same run id
+        CountingWaiter waiter = new CountingWaiter();
+        testedDispatcher.register(RUN_ID, Collections.singletonList("a"), waiter);
+        testedDispatcher.register(RUN_ID, Collections.singletonList("a"), waiter);
+
+        testedDispatcher.dispatchChanged(RUN_ID, Collections.singletonList("a"));
+
+        assertEquals(1, waiter.changed);
+    }
+
+    private static final class CountingWaiter implements WaitForCustomBuildPropertiesDispatcher.Waiter {
+
+        private int changed;
+        private int completed;
+
+        @Override
+        public void onCustomBuildPropertyChanged() {
+            changed++;
+        }
+
+        @Override
+        public void onRunCompleted() {
+            completed++;
+        }
+
+    }
+
+}
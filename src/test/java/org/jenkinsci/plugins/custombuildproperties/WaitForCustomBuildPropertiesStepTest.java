@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties;
+
+import org.jenkinsci.plugins.custombuildproperties.WaitForCustomBuildPropertiesStep.Execution;
+import org.jenkinsci.plugins.custombuildproperties.WaitForCustomBuildPropertiesStep.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WaitForCustomBuildPropertiesStepTest {
+
+    private static final List<String> KEYS = Arrays.asList("a", "b");
+
+    @Test
+    void test_no_action_yet() {
+        assertEquals(Outcome.WAITING, Execution.evaluate(null, KEYS, null, false));
+    }
+
+    @Test
+    void test_no_keys() {
+        assertEquals(Outcome.SATISFIED, Execution.evaluate(null, Collections.emptyList(), null, true));
+    }
+
+    @Test
+    void test_all_keys_set() {
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        action.setProperty("a", 1);
+        assertEquals(Outcome.WAITING, Execution.evaluate(action, KEYS, null, false));
+
+        action.setProperty("b", 2);
+        assertEquals(Outcome.SATISFIED, Execution.evaluate(action, KEYS, null, false));
+    }
+
+    @Test
+    void test_condition() {
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        List<CustomBuildPropertyCondition> conditions = Collections.singletonList(
+                new CustomBuildPropertyCondition("a", CustomBuildPropertyCondition.Type.EQUALS, "done"));
+        action.setProperty("a", "running");
+        assertEquals(Outcome.WAITING, Execution.evaluate(action, Collections.singletonList("a"), conditions, false));
+
+        action.setProperty("a", "done");
+        assertEquals(Outcome.SATISFIED, Execution.evaluate(action, Collections.singletonList("a"), conditions, false));
+    }
+
+    @Test
+    void test_finished_run_without_keys_fails() {
+        // e.g. build: 0 resolved to a lastBuild which is already finished
+        assertEquals(Outcome.RUN_FINISHED, Execution.evaluate(null, KEYS, null, true));
+
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        action.setProperty("a", 1);
+        assertEquals(Outcome.RUN_FINISHED, Execution.evaluate(action, KEYS, null, true));
+    }
+
+    @Test
+    void test_finished_run_with_keys_succeeds() {
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        action.setProperty("a", 1);
+        action.setProperty("b", 2);
+        assertEquals(Outcome.SATISFIED, Execution.evaluate(action, KEYS, null, true));
+    }
+
+    @Test
+    void test_finished_run_with_unmet_condition_fails() {
+        CustomBuildPropertiesAction action = new CustomBuildPropertiesAction();
+        List<CustomBuildPropertyCondition> conditions = Collections.singletonList(
+                new CustomBuildPropertyCondition("a", CustomBuildPropertyCondition.Type.EQUALS, "done"));
+        action.setProperty("a", "running");
+        assertEquals(Outcome.RUN_FINISHED, Execution.evaluate(action, Collections.singletonList("a"), conditions, true));
+    }
+
+}
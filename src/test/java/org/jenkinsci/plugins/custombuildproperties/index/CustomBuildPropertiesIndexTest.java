@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomBuildPropertiesIndexTest {
+
+    private static final String JOB = "folder/job";
+
+    @TempDir
+    File buildDir;
+
+    private final Map<Integer, Map<String, Object>> builds = new HashMap<>();
+
+    private final List<Integer> readBuildNumbers = new ArrayList<>();
+
+    private CustomBuildPropertiesIndex testedIndex;
+
+    @BeforeEach
+    void setup() {
+        testedIndex = new CustomBuildPropertiesIndex();
+    }
+
+    private void createBuild(int buildNumber, String... keys) {
+        assertTrue(new File(buildDir, String.valueOf(buildNumber)).mkdirs());
+        Map<String, Object> properties = new HashMap<>();
+        for (String key : keys) {
+            properties.put(key, "value");
+        }
+        builds.put(buildNumber, properties);
+    }
+
+    private void scan() {
+        testedIndex.scan(JOB, buildDir, buildNumber -> {
+            readBuildNumbers.add(buildNumber);
+            return builds.get(buildNumber);
+        });
+    }
+
+    @Test
+    void test_unknown_until_scanned() {
+        createBuild(3, "key");
+        assertEquals(CustomBuildPropertiesIndex.UNKNOWN, testedIndex.getPreviousBuildNumber(JOB, "key", 10));
+
+        scan();
+        assertEquals(3, testedIndex.getPreviousBuildNumber(JOB, "key", 10));
+    }
+
+    @Test
+    void test_scanned_once() {
+        createBuild(3, "key");
+        scan();
+        scan();
+        assertEquals(Collections.singletonList(3), readBuildNumbers);
+    }
+
+    @Test
+    void test_previous_build_before_current_and_later_builds() {
+        createBuild(3, "key", "other");
+        createBuild(5);
+        createBuild(7, "key");
+        createBuild(9, "key");
+        scan();
+
+        // the current build 9 and the concurrent later build 10 set the key as well
+        testedIndex.onChanged(JOB, 10, Collections.singletonMap("key", new CustomBuildPropertiesListener.Change(null, "value")));
+        assertEquals(7, testedIndex.getPreviousBuildNumber(JOB, "key", 9));
+        assertEquals(3, testedIndex.getPreviousBuildNumber(JOB, "key", 7));
+        assertEquals(0, testedIndex.getPreviousBuildNumber(JOB, "key", 3));
+        assertEquals(0, testedIndex.getPreviousBuildNumber(JOB, "missing", 9));
+        assertArrayEquals(new int[]{10, 9, 7, 3}, testedIndex.getBuildNumbers(JOB, "key"));
+    }
+
+    @Test
+    void test_deleted_build_only_removes_that_build() {
+        createBuild(3, "key", "other");
+        createBuild(7, "key");
+        scan();
+
+        testedIndex.removeBuild(JOB, 3);
+        assertEquals(7, testedIndex.getPreviousBuildNumber(JOB, "key", 9));
+        assertEquals(0, testedIndex.getPreviousBuildNumber(JOB, "key", 7));
+        assertEquals(0, testedIndex.getPreviousBuildNumber(JOB, "other", 9));
+    }
+
+    @Test
+    void test_removed_key() {
+        CustomBuildPropertiesIndex.JobIndex jobIndex = new CustomBuildPropertiesIndex.JobIndex();
+        jobIndex.put("key", 3);
+        jobIndex.put("key", 5);
+        jobIndex.remove("key", 5);
+        assertEquals(3, jobIndex.getPreviousBuildNumber("key", 9));
+    }
+
+    @Test
+    void test_null_value_kept_and_removed_key_dropped() {
+        createBuild(3, "key");
+        builds.get(3).put("nullKey", null);
+        createBuild(7, "key", "nullKey");
+        scan();
+        assertEquals(3, testedIndex.getPreviousBuildNumber(JOB, "nullKey", 7));
+
+        // set to null like the scan found it in build 3, removed in build 7
+        testedIndex.onChanged(JOB, 7, Collections.singletonMap("key", new CustomBuildPropertiesListener.Change("value", null)));
+        testedIndex.onChanged(JOB, 7, Collections.singletonMap("nullKey", new CustomBuildPropertiesListener.Change("value", null, true)));
+        assertEquals(7, testedIndex.getPreviousBuildNumber(JOB, "key", 9));
+        assertEquals(3, testedIndex.getPreviousBuildNumber(JOB, "nullKey", 9));
+    }
+
+    @Test
+    void test_invalidate() {
+        createBuild(3, "key");
+        scan();
+        testedIndex.invalidate(JOB);
+        assertEquals(CustomBuildPropertiesIndex.UNKNOWN, testedIndex.getPreviousBuildNumber(JOB, "key", 10));
+    }
+
+    @Test
+    void test_buildNumbers() {
+        CustomBuildPropertiesIndex.BuildNumbers buildNumbers = new CustomBuildPropertiesIndex.BuildNumbers();
+        for (int buildNumber : Arrays.asList(5, 1, 9, 3, 7, 5)) {
+            buildNumbers.add(buildNumber);
+        }
+        assertArrayEquals(new int[]{9, 7, 5, 3, 1}, buildNumbers.toDescendingArray());
+        assertEquals(0, buildNumbers.lower(1));
+        assertEquals(1, buildNumbers.lower(3));
+        assertEquals(3, buildNumbers.lower(4));
+        assertEquals(9, buildNumbers.lower(100));
+
+        assertTrue(buildNumbers.remove(5));
+        assertFalse(buildNumbers.remove(5));
+        assertEquals(3, buildNumbers.lower(7));
+        for (int buildNumber : Arrays.asList(1, 3, 7, 9)) {
+            assertTrue(buildNumbers.remove(buildNumber));
+        }
+        assertTrue(buildNumbers.isEmpty());
+    }
+
+}
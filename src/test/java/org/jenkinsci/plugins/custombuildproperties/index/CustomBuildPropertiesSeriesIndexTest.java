@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomBuildPropertiesSeriesIndexTest {
+
+    private int originalMaxSeries;
+
+    private CustomBuildPropertiesSeriesIndex testedIndex;
+
+    private final List<Integer> readBuildNumbers = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        originalMaxSeries = CustomBuildPropertiesSeriesIndex.MAX_SERIES;
+        testedIndex = new CustomBuildPropertiesSeriesIndex();
+    }
+
+    @AfterEach
+    void tearDown() {
+        CustomBuildPropertiesSeriesIndex.MAX_SERIES = originalMaxSeries;
+    }
+
+    /**
+     * Builds 1 to 10, even builds have <code>count</code>, build 5 has <code>label</code>.
+     */
+    private Map<String, Object> readBuild(int buildNumber) {
+        readBuildNumbers.add(buildNumber);
+        Map<String, Object> properties = new HashMap<>();
+        if (buildNumber % 2 == 0) {
+            properties.put("count", buildNumber * 10);
+        }
+        if (buildNumber == 5) {
+            properties.put("label", "five");
+        }
+        return properties;
+    }
+
+    private static int[] descending(int... buildNumbers) {
+        return Arrays.stream(buildNumbers).map(buildNumber -> -buildNumber).sorted().map(buildNumber -> -buildNumber).toArray();
+    }
+
+    @Test
+    void test_only_limit_builds_read() {
+        IntFunction<Map<String, Object>> reader = this::readBuild;
+        NavigableMap<Integer, Object> series = testedIndex.getSeries("job", "count", descending(2, 4, 6, 8, 10), 2, reader);
+        assertEquals(Arrays.asList(10, 8), new ArrayList<>(series.keySet()));
+        assertEquals(100, series.get(10));
+        assertEquals(Arrays.asList(10, 8), readBuildNumbers);
+
+        // cached values are not read again
+        readBuildNumbers.clear();
+        series = testedIndex.getSeries("job", "count", descending(2, 4, 6, 8, 10), 3, reader);
+        assertEquals(Arrays.asList(10, 8, 6), new ArrayList<>(series.keySet()));
+        assertEquals(Collections.singletonList(6), readBuildNumbers);
+    }
+
+    @Test
+    void test_all_builds_without_limit() {
+        NavigableMap<Integer, Object> series = testedIndex.getSeries("job", "count", descending(2, 4, 6), 0, this::readBuild);
+        assertEquals(Arrays.asList(6, 4, 2), new ArrayList<>(series.keySet()));
+    }
+
+    @Test
+    void test_effective_limit_bounded() {
+        assertEquals(50, CustomBuildPropertiesSeriesIndex.getEffectiveLimit(50));
+        assertEquals(1000, CustomBuildPropertiesSeriesIndex.getEffectiveLimit(0));
+        assertEquals(1000, CustomBuildPropertiesSeriesIndex.getEffectiveLimit(-1));
+        assertEquals(1000, CustomBuildPropertiesSeriesIndex.getEffectiveLimit(1000000));
+    }
+
+    @Test
+    void test_unknown_key_not_cached() {
+        assertEquals(Collections.emptyMap(), testedIndex.getSeries("job", "missing", descending(), 10, this::readBuild));
+        assertEquals(0, testedIndex.getSize());
+        assertEquals(Collections.emptyList(), readBuildNumbers);
+    }
+
+    @Test
+    void test_cache_bounded() {
+        CustomBuildPropertiesSeriesIndex.MAX_SERIES = 2;
+        testedIndex.getSeries("a", "count", descending(2), 1, this::readBuild);
+        testedIndex.getSeries("b", "count", descending(2), 1, this::readBuild);
+        testedIndex.getSeries("a", "count", descending(2), 1, this::readBuild);
+        testedIndex.getSeries("c", "count", descending(2), 1, this::readBuild);
+        assertEquals(2, testedIndex.getSize());
+
+        readBuildNumbers.clear();
+        testedIndex.getSeries("a", "count", descending(2), 1, this::readBuild);
+        assertEquals(Collections.emptyList(), readBuildNumbers);
+        // b was evicted as least recently used
+        testedIndex.getSeries("b", "count", descending(2), 1, this::readBuild);
+        assertEquals(Collections.singletonList(2), readBuildNumbers);
+    }
+
+    @Test
+    void test_removed_build_and_invalidated_job() {
+        testedIndex.getSeries("job", "count", descending(2, 4), 0, this::readBuild);
+        testedIndex.removeBuild("job", 4);
+        readBuildNumbers.clear();
+        assertEquals(Collections.singletonList(2), new ArrayList<>(testedIndex.getSeries("job", "count", descending(2), 0, this::readBuild).keySet()));
+        assertEquals(Collections.emptyList(), readBuildNumbers);
+
+        testedIndex.invalidate("job");
+        assertEquals(0, testedIndex.getSize());
+    }
+
+    @Test
+    void test_scan_stops_at_limit() {
+        int[] buildNumbers = {10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+        Map<String, NavigableMap<Integer, Object>> series = CustomBuildPropertiesSeriesIndex.scanSeries(buildNumbers,
+                Collections.singletonList("count"), 2, this::readBuild);
+        assertEquals(Arrays.asList(10, 8), new ArrayList<>(series.get("count").keySet()));
+        assertEquals(Arrays.asList(10, 9, 8), readBuildNumbers);
+    }
+
+    @Test
+    void test_scan_continues_for_rare_key() {
+        int[] buildNumbers = {10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+        Map<String, NavigableMap<Integer, Object>> series = CustomBuildPropertiesSeriesIndex.scanSeries(buildNumbers,
+                Arrays.asList("count", "label"), 1, this::readBuild);
+        assertEquals(Collections.singletonList(10), new ArrayList<>(series.get("count").keySet()));
+        assertEquals("five", series.get("label").get(5));
+        assertEquals(Arrays.asList(10, 9, 8, 7, 6, 5), readBuildNumbers);
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomBuildPropertiesValueIndexTest {
+
+    @TempDir
+    File tempDir;
+
+    private String originalIncludeKeys;
+
+    private CustomBuildPropertiesValueIndex testedIndex;
+
+    @BeforeEach
+    void setup() {
+        originalIncludeKeys = CustomBuildPropertiesValueIndex.INCLUDE_KEYS;
+        CustomBuildPropertiesValueIndex.INCLUDE_KEYS = ".*";
+        testedIndex = new CustomBuildPropertiesValueIndex();
+    }
+
+    @AfterEach
+    void tearDown() {
+        CustomBuildPropertiesValueIndex.INCLUDE_KEYS = originalIncludeKeys;
+    }
+
+    private void put(String runId, String key, Object value, boolean replace) {
+        testedIndex.put(runId, key, testedIndex.toIndexedValue(key, value), replace);
+    }
+
+    @Test
+    void test_find_sorted_by_job_and_descending_number() {
+        put("b#2", "gitCommit", "abc123", true);
+        put("a#9", "gitCommit", "abc123", true);
+        put("a#10", "gitCommit", "abc123", true);
+        put("a#11", "gitCommit", "def456", true);
+
+        assertEquals(Arrays.asList("a#10", "a#9", "b#2"), testedIndex.findRunIds("gitCommit", "abc123"));
+    }
+
+    @Test
+    void test_changed_value_replaces_old_value() {
+        put("a#1", "releaseCandidate", false, true);
+        put("a#1", "releaseCandidate", true, true);
+
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("releaseCandidate", false));
+        assertEquals(Collections.singletonList("a#1"), testedIndex.findRunIds("releaseCandidate", "true"));
+    }
+
+    @Test
+    void test_scan_keeps_value_of_event() {
+        put("a#1", "key", "new", true);
+        put("a#1", "key", "old", false);
+
+        assertEquals(Collections.singletonList("a#1"), testedIndex.findRunIds("key", "new"));
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("key", "old"));
+    }
+
+    @Test
+    void test_scan_keeps_removal_of_event() {
+        put("a#1", "key", "old", false);
+        put("a#1", "key", null, true);
+        // a scan still reading the value of the delayed save
+        put("a#1", "key", "old", false);
+
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("key", "old"));
+    }
+
+    @Test
+    void test_scan_keeps_removal_of_too_long_value() {
+        put("a#1", "key", new String(new char[1000]), true);
+        put("a#1", "key", "old", false);
+
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("key", "old"));
+    }
+
+    @Test
+    void test_scan_skips_deleted_run() {
+        testedIndex.removeRun("a#1");
+        put("a#1", "key", "value", false);
+
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("key", "value"));
+    }
+
+    @Test
+    void test_removals_kept_until_rebuild_complete() {
+        testedIndex.beginScan();
+        testedIndex.beginScan();
+        testedIndex.removeRun("a#1");
+        put("a#2", "key", null, true);
+        testedIndex.endScan();
+        put("a#1", "key", "value", false);
+        put("a#2", "key", "value", false);
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("key", "value"));
+
+        testedIndex.completeRebuild();
+        assertTrue(testedIndex.isComplete());
+        // later scans add values again
+        put("a#3", "key", "value", false);
+        put("a#2", "key", "value", false);
+        assertEquals(Arrays.asList("a#3", "a#2"), testedIndex.findRunIds("key", "value"));
+    }
+
+    @Test
+    void test_remove() {
+        put("folder/a#1", "key", "value", true);
+        put("folder/b#1", "key", "value", true);
+        put("other#1", "key", "value", true);
+        testedIndex.removeRun("other#1");
+        testedIndex.removeItem("folder");
+
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("key", "value"));
+    }
+
+    private File createBuild(File buildDir, int buildNumber, String gitCommit) throws Exception {
+        File dir = new File(buildDir, String.valueOf(buildNumber));
+        assertTrue(dir.mkdirs());
+        File buildXml = new File(dir, "build.xml");
+        Files.write(buildXml.toPath(), gitCommit.getBytes(StandardCharsets.UTF_8));
+        assertTrue(buildXml.setLastModified(100000L));
+        return buildXml;
+    }
+
+    private static Map<String, Object> readBuild(File buildDir, int buildNumber, List<Integer> readBuildNumbers) {
+        readBuildNumbers.add(buildNumber);
+        try {
+            String gitCommit = new String(Files.readAllBytes(new File(buildDir, buildNumber + "/build.xml").toPath()), StandardCharsets.UTF_8);
+            return Collections.singletonMap("gitCommit", gitCommit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void test_scan_reuses_index_file() throws Exception {
+        File buildDir = new File(tempDir, "builds");
+        File indexFile = new File(tempDir, JobIndexFile.FILE_NAME);
+        createBuild(buildDir, 1, "abc");
+        File buildXml2 = createBuild(buildDir, 2, "abc");
+        createBuild(buildDir, 3, "def");
+        List<Integer> readBuildNumbers = new ArrayList<>();
+
+        assertEquals(3, testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers)));
+        assertEquals(Arrays.asList("job#2", "job#1"), testedIndex.findRunIds("gitCommit", "abc"));
+        assertTrue(testedIndex.isComplete("job"));
+
+        // after a restart only changed builds are read
+        readBuildNumbers.clear();
+        testedIndex = new CustomBuildPropertiesValueIndex();
+        assertEquals(0, testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers)));
+        assertEquals(Collections.emptyList(), readBuildNumbers);
+        assertEquals(Arrays.asList("job#2", "job#1"), testedIndex.findRunIds("gitCommit", "abc"));
+
+        // changed in the same second as the previous scan, deleted builds are dropped
+        Files.write(buildXml2.toPath(), "defg".getBytes(StandardCharsets.UTF_8));
+        assertTrue(buildXml2.setLastModified(100000L));
+        Files.delete(new File(buildDir, "3/build.xml").toPath());
+        Files.delete(new File(buildDir, "3").toPath());
+        testedIndex = new CustomBuildPropertiesValueIndex();
+        assertEquals(1, testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers)));
+        assertEquals(Collections.singletonList(2), readBuildNumbers);
+        assertEquals(Collections.singletonList("job#1"), testedIndex.findRunIds("gitCommit", "abc"));
+        assertEquals(Collections.singletonList("job#2"), testedIndex.findRunIds("gitCommit", "defg"));
+        assertEquals(Collections.emptyList(), testedIndex.findRunIds("gitCommit", "def"));
+        assertEquals(2, JobIndexFile.read(indexFile, CustomBuildPropertiesValueIndex.INCLUDE_KEYS + "\n256").size());
+    }
+
+    @Test
+    void test_scan_latest_builds() throws Exception {
+        File buildDir = new File(tempDir, "builds");
+        File indexFile = new File(tempDir, JobIndexFile.FILE_NAME);
+        createBuild(buildDir, 1, "abc");
+        createBuild(buildDir, 2, "abc");
+        createBuild(buildDir, 3, "abc");
+        List<Integer> readBuildNumbers = new ArrayList<>();
+
+        assertEquals(2, testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers), 2));
+        assertEquals(Arrays.asList(3, 2), readBuildNumbers);
+        assertEquals(Arrays.asList("job#3", "job#2"), testedIndex.findRunIds("gitCommit", "abc"));
+        assertFalse(testedIndex.isComplete("job"));
+        assertFalse(indexFile.exists());
+
+        // all builds fit into the limit
+        assertEquals(3, testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers), 3));
+        assertEquals(Arrays.asList("job#3", "job#2", "job#1"), testedIndex.findRunIds("gitCommit", "abc"));
+        assertTrue(testedIndex.isComplete("job"));
+        assertTrue(indexFile.exists());
+    }
+
+    @Test
+    void test_scan_invalidated_by_other_configuration() throws Exception {
+        File buildDir = new File(tempDir, "builds");
+        File indexFile = new File(tempDir, JobIndexFile.FILE_NAME);
+        createBuild(buildDir, 1, "abc");
+        List<Integer> readBuildNumbers = new ArrayList<>();
+        testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers));
+
+        CustomBuildPropertiesValueIndex.INCLUDE_KEYS = "gitCommit";
+        testedIndex = new CustomBuildPropertiesValueIndex();
+        assertEquals(1, testedIndex.scan("job", indexFile, buildDir, n -> readBuild(buildDir, n, readBuildNumbers)));
+        assertEquals(Collections.singletonList("job#1"), testedIndex.findRunIds("gitCommit", "abc"));
+    }
+
+    @Test
+    void test_internal_keys_not_indexed() {
+        assertNull(testedIndex.toIndexedValue("_cbp_table_Foo", "(.*)_(.*)"));
+    }
+
+    @Test
+    void test_nothing_indexed_per_default() {
+        CustomBuildPropertiesValueIndex.INCLUDE_KEYS = "";
+        assertFalse(testedIndex.isIndexed("gitCommit"));
+        assertNull(testedIndex.toIndexedValue("gitCommit", "abc123"));
+    }
+
+    @Test
+    void test_only_included_keys_indexed() {
+        CustomBuildPropertiesValueIndex.INCLUDE_KEYS = "gitCommit|releaseCandidate";
+        assertTrue(testedIndex.isIndexed("gitCommit"));
+        assertFalse(testedIndex.isIndexed("perf_row_col"));
+    }
+
+}
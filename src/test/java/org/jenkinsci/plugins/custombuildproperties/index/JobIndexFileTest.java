@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobIndexFileTest {
+
+    private static final String CONFIGURATION = ".*\n256";
+
+    @TempDir
+    File tempDir;
+
+    private static Map<Integer, JobIndexFile.BuildEntry> createEntries() {
+        Map<String, String> values = new HashMap<>();
+        values.put("gitCommit", "abc123");
+        values.put("_cbp_table_Foo", null);
+        values.put("unicode", "\u00e4\u20ac");
+
+        Map<Integer, JobIndexFile.BuildEntry> entries = new TreeMap<>();
+        entries.put(2, new JobIndexFile.BuildEntry(1234L, values));
+        entries.put(1, new JobIndexFile.BuildEntry(5678L, new HashMap<>()));
+        return entries;
+    }
+
+    @Test
+    void test_round_trip() throws Exception {
+        File file = new File(tempDir, JobIndexFile.FILE_NAME);
+        Map<Integer, JobIndexFile.BuildEntry> entries = createEntries();
+        JobIndexFile.write(file, CONFIGURATION, entries);
+
+        Map<Integer, JobIndexFile.BuildEntry> read = JobIndexFile.read(file, CONFIGURATION);
+        assertEquals(Arrays.asList(1, 2), Arrays.asList(read.keySet().toArray()));
+        for (Integer buildNumber : entries.keySet()) {
+            assertEquals(entries.get(buildNumber).getStamp(), read.get(buildNumber).getStamp());
+            assertEquals(entries.get(buildNumber).getValues(), read.get(buildNumber).getValues());
+        }
+    }
+
+    @Test
+    void test_other_configuration_ignored() throws Exception {
+        File file = new File(tempDir, JobIndexFile.FILE_NAME);
+        JobIndexFile.write(file, CONFIGURATION, createEntries());
+
+        assertTrue(JobIndexFile.read(file, "other\n256").isEmpty());
+    }
+
+    @Test
+    void test_truncated_ignored() throws Exception {
+        File file = new File(tempDir, JobIndexFile.FILE_NAME);
+        JobIndexFile.write(file, CONFIGURATION, createEntries());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertTrue(JobIndexFile.read(file, CONFIGURATION).isEmpty());
+    }
+
+    @Test
+    void test_missing_ignored() {
+        assertTrue(JobIndexFile.read(new File(tempDir, "missing"), CONFIGURATION).isEmpty());
+    }
+
+    @Test
+    void test_corrupt_length_ignored() throws Exception {
+        File file = new File(tempDir, JobIndexFile.FILE_NAME);
+        JobIndexFile.write(file, CONFIGURATION, createEntries());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        // length of the configuration string
+        bytes[8] = 0x7f;
+        Files.write(file.toPath(), bytes);
+
+        assertTrue(JobIndexFile.read(file, CONFIGURATION).isEmpty());
+    }
+
+    @Test
+    void test_stamp() throws Exception {
+        File buildDir = new File(tempDir, "1");
+        assertTrue(buildDir.mkdir());
+        long emptyStamp = JobIndexFile.getStamp(buildDir);
+
+        File buildXml = new File(buildDir, "build.xml");
+        Files.write(buildXml.toPath(), new byte[1]);
+        assertTrue(buildXml.setLastModified(100000L));
+        long buildXmlStamp = JobIndexFile.getStamp(buildDir);
+        assertNotEquals(emptyStamp, buildXmlStamp);
+
+        File sidecar = new File(buildDir, "custombuildproperties.json");
+        Files.write(sidecar.toPath(), new byte[1]);
+        assertTrue(sidecar.setLastModified(200000L));
+        long sidecarStamp = JobIndexFile.getStamp(buildDir);
+        assertNotEquals(buildXmlStamp, sidecarStamp);
+        assertEquals(sidecarStamp, JobIndexFile.getStamp(buildDir));
+
+        // changed within the same second
+        Files.write(sidecar.toPath(), new byte[2]);
+        assertTrue(sidecar.setLastModified(200000L));
+        assertNotEquals(sidecarStamp, JobIndexFile.getStamp(buildDir));
+    }
+
+}
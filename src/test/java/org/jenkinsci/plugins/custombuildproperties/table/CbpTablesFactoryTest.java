@@ -0,0 +1,176 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, custom-build-properties contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.custombuildproperties.table;
+
+import hudson.markup.MarkupFormatter;
+import org.jenkinsci.plugins.custombuildproperties.CustomBuildPropertiesAction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CbpTablesFactoryTest {
+
+    @Test
+    void test_literalPrefix() {
+        assertEquals("perf_", CbpTablesFactory.literalPrefix("perf_(.*)_(.*)"));
+        assertEquals("perf_", CbpTablesFactory.literalPrefix("^perf_(.+)"));
+        assertEquals("a.b", CbpTablesFactory.literalPrefix("a\\.b(.*)"));
+        assertEquals("a.b_", CbpTablesFactory.literalPrefix("\\Qa.b_\\E(.*)"));
+        assertEquals("a", CbpTablesFactory.literalPrefix("\\Qab\\E?c"));
+        assertEquals("a", CbpTablesFactory.literalPrefix("ab?c"));
+        assertEquals("ab", CbpTablesFactory.literalPrefix("ab+c"));
+        assertEquals("a", CbpTablesFactory.literalPrefix("ab{0,1}"));
+        assertEquals("a", CbpTablesFactory.literalPrefix("a\\d"));
+        assertEquals("", CbpTablesFactory.literalPrefix("a(.*)|b(.*)"));
+        assertEquals("", CbpTablesFactory.literalPrefix("[ab](.*)"));
+    }
+
+    @Test
+    void test_createTables_multi_column_and_key_table() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "Activities", "Activity-(.*?)-(.*)");
+        properties.put("Activity-build-Duration", 12);
+        properties.put("Activity-build-Result", "ok");
+        properties.put("Activity-test-Duration", 34);
+        properties.put("Other", "value");
+
+        List<CbpTable> tables = new CbpTablesFactory(properties, new BracketMarkupFormatter()).createTables();
+
+        assertEquals(Arrays.asList("Activities", "Key"), getNames(tables));
+        CbpTable activities = tables.get(0);
+        assertEquals(Arrays.asList("[build]", "[test]"), getRowTitles(activities));
+        assertEquals(Arrays.asList("[Duration]", "[Result]"), getColumnTitles(activities));
+        assertEquals("[12]", activities.getRows().get(0).getCellValue(activities.getColumns().get(0)));
+        assertEquals("[ok]", activities.getRows().get(0).getCellValue(activities.getColumns().get(1)));
+        assertEquals("", activities.getRows().get(1).getCellValue(activities.getColumns().get(1)));
+
+        // the table definition itself is not shown
+        CbpTable keyTable = tables.get(1);
+        assertEquals(Arrays.asList("[Other]"), getRowTitles(keyTable));
+    }
+
+    @Test
+    void test_createTables_internal_sanitizer() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX + "Key_Graph_Value", CustomBuildPropertiesAction.CBP_INTERNAL_SANITIZER);
+        properties.put(CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX + "Key_Text_Value", "unknown");
+        properties.put("Graph", "<b>bold</b>");
+        properties.put("Text", "<b>bold</b>");
+
+        List<CbpTable> tables = new CbpTablesFactory(properties, new BracketMarkupFormatter()).createTables();
+
+        assertEquals(1, tables.size());
+        CbpTable keyTable = tables.get(0);
+        // a sanitizer with an unknown value is kept as property
+        assertEquals(Arrays.asList("[Graph]", "[Text]", "[" + CustomBuildPropertiesAction.CBP_SANITIZER_PREFIX + "Key_Text_Value]"), getRowTitles(keyTable));
+        CbpTableColumn valueColumn = keyTable.getColumns().get(0);
+        assertEquals("<b>bold</b>", keyTable.getRows().get(0).getCellValue(valueColumn));
+        assertEquals("[<b>bold</b>]", keyTable.getRows().get(1).getCellValue(valueColumn));
+    }
+
+    @Test
+    void test_createTables_invalid_table_regex_kept_as_property() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "Broken", "(unclosed");
+        properties.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "NotAString", 42);
+
+        List<CbpTable> tables = new CbpTablesFactory(properties, new BracketMarkupFormatter()).createTables();
+
+        assertEquals(Arrays.asList("Key"), getNames(tables));
+        assertEquals(2, tables.get(0).getRows().size());
+    }
+
+    @Test
+    void test_createTables_key_matched_by_several_tables_in_first_table_only() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "A", "perf_(.*)_(.*)");
+        properties.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "B", "(perf)_(.*)");
+        properties.put("perf_x_y", 1);
+
+        List<CbpTable> tables = new CbpTablesFactory(properties, new BracketMarkupFormatter()).createTables();
+
+        assertEquals(Arrays.asList("A", "B"), getNames(tables));
+        assertEquals(Arrays.asList("[x]"), getRowTitles(tables.get(0)));
+        assertTrue(tables.get(1).getRows().isEmpty());
+    }
+
+    @Test
+    void test_createTables_regex_without_literal_prefix() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CustomBuildPropertiesAction.CBP_TABLE_PREFIX + "Any", "(a|b)-(.*)");
+        properties.put("a-1", 1);
+        properties.put("b-2", 2);
+        properties.put("c-3", 3);
+
+        List<CbpTable> tables = new CbpTablesFactory(properties, new BracketMarkupFormatter()).createTables();
+
+        assertEquals(Arrays.asList("Any", "Key"), getNames(tables));
+        assertEquals(Arrays.asList("[a]", "[b]"), getRowTitles(tables.get(0)));
+        assertEquals(Arrays.asList("[c-3]"), getRowTitles(tables.get(1)));
+    }
+
+    private static List<String> getNames(List<CbpTable> tables) {
+        List<String> names = new ArrayList<>();
+        for (CbpTable table : tables) {
+            names.add(table.getName());
+        }
+        return names;
+    }
+
+    private static List<String> getRowTitles(CbpTable table) {
+        List<String> titles = new ArrayList<>();
+        for (CbpTableRow row : table.getRows()) {
+            titles.add(row.getTitle());
+        }
+        return titles;
+    }
+
+    private static List<String> getColumnTitles(CbpTable table) {
+        List<String> titles = new ArrayList<>();
+        for (CbpTableColumn column : table.getColumns()) {
+            titles.add(column.getTitle());
+        }
+        return titles;
+    }
+
+    private static final class BracketMarkupFormatter extends MarkupFormatter {
+
+        @Override
+        public void translate(String markup, Writer output) throws IOException {
+            output.write("[" + markup + "]");
+        }
+
+    }
+
+}